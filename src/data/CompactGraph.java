@@ -0,0 +1,196 @@
+package data;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import directions.Vertex;
+
+/**
+ * An immutable weighted graph in compressed sparse row form. Every vertex has a
+ * dense int id, and the edges leaving vertex v are the edges numbered from
+ * begin(v) (inclusive) to end(v) (exclusive). The head and weight of each edge
+ * are held in primitive arrays, so walking the edges of a vertex touches a few
+ * contiguous array ranges instead of hash buckets and list objects. Routing
+ * strategies run on this form directly; the vertex objects are only needed to
+ * translate the ends of a query into ids and a route back into vertices.
+ * @author rohithrokkam
+ */
+public class CompactGraph {
+
+	/* The dense id of every vertex. */
+	private final Map<Vertex, Integer> ids;
+
+	/* The vertex with each dense id. */
+	private final Vertex[] vertices;
+
+	/* The first edge of each vertex; offsets[size] is the number of edges. */
+	private final int[] offsets;
+
+	/* The head of each edge. */
+	private final int[] targets;
+
+	/* The weight of each edge. */
+	private final float[] weights;
+
+	/* The graph with every edge reversed, built on first use. */
+	private volatile CompactGraph reverse;
+
+	/**
+	 * Build a compact graph from an adjacency graph. Edge weights are copied
+	 * from the lengths stored in the adjacency graph. Edges to
+	 * vertices that are not keys of the graph are dropped.
+	 * @param graph The graph to be converted.
+	 */
+	public CompactGraph(IteratorGraph<? extends Vertex> graph) {
+		int size = graph.size();
+		ids = new HashMap<Vertex, Integer>(size * 2);
+		vertices = new Vertex[size];
+		int id = 0;
+		for(Vertex v : graph.keySet()) {
+			ids.put(v, id);
+			vertices[id++] = v;
+		}
+		offsets = new int[size + 1];
+		for(int v = 0; v < size; v++) {
+			int degree = 0;
+			for(Vertex adjVertex : graph.adjacentVertices(vertices[v]))
+				if(ids.containsKey(adjVertex))
+					degree++;
+			offsets[v + 1] = offsets[v] + degree;
+		}
+		targets = new int[offsets[size]];
+		weights = new float[offsets[size]];
+		for(int v = 0; v < size; v++) {
+			int e = offsets[v];
+			List<? extends Vertex> adjacent = graph.adjacentVertices(vertices[v]);
+			float[] lengths = graph.weights(vertices[v]);
+			for(int i = 0; i < lengths.length; i++) {
+				Integer adj = ids.get(adjacent.get(i));
+				if(adj != null) {
+					targets[e] = adj;
+					weights[e] = lengths[i];
+					e++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Construct a compact graph from its arrays, sharing the vertex ids of
+	 * another graph.
+	 */
+	protected CompactGraph(Map<Vertex, Integer> ids, Vertex[] vertices,
+			int[] offsets, int[] targets, float[] weights) {
+		this.ids = ids;
+		this.vertices = vertices;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+	}
+
+	/**
+	 * Return the number of vertices in this graph.
+	 * @return The number of vertices in this graph.
+	 */
+	public int size() {
+		return vertices.length;
+	}
+
+	/**
+	 * Return the number of edges in this graph.
+	 * @return The number of edges in this graph.
+	 */
+	public int edgeCount() {
+		return targets.length;
+	}
+
+	/**
+	 * Return the dense id of a vertex, or -1 if it is not in this graph.
+	 * @param v The vertex whose id is to be found.
+	 * @return The dense id of the vertex, or -1 if it is not in this graph.
+	 */
+	public int id(Vertex v) {
+		Integer id = ids.get(v);
+		return (id == null) ? -1 : id;
+	}
+
+	/**
+	 * Return the vertex with the specified dense id.
+	 * @param id The dense id of the vertex.
+	 * @return The vertex with the specified id.
+	 */
+	public Vertex vertex(int id) {
+		return vertices[id];
+	}
+
+	/**
+	 * Return the number of the first edge leaving a vertex.
+	 * @param v The id of the vertex.
+	 * @return The number of the first edge leaving the vertex.
+	 */
+	public int begin(int v) {
+		return offsets[v];
+	}
+
+	/**
+	 * Return one more than the number of the last edge leaving a vertex.
+	 * @param v The id of the vertex.
+	 * @return The end of the range of edges leaving the vertex.
+	 */
+	public int end(int v) {
+		return offsets[v + 1];
+	}
+
+	/**
+	 * Return the id of the vertex at the head of an edge.
+	 * @param e The number of the edge.
+	 * @return The id of the vertex at the head of the edge.
+	 */
+	public int target(int e) {
+		return targets[e];
+	}
+
+	/**
+	 * Return the weight of an edge.
+	 * @param e The number of the edge.
+	 * @return The weight of the edge.
+	 */
+	public float weight(int e) {
+		return weights[e];
+	}
+
+	/**
+	 * Return a graph with the same vertices and ids as this one, in which every
+	 * edge is reversed and keeps its weight. The reverse graph is built on the
+	 * first call and shared afterwards, and the reverse of the reverse graph is
+	 * this graph.
+	 * @return A graph with every edge of this graph reversed.
+	 */
+	public CompactGraph reverse() {
+		if(reverse == null) {
+			int size = vertices.length;
+			int[] reverseOffsets = new int[size + 1];
+			for(int e = 0; e < targets.length; e++)
+				reverseOffsets[targets[e] + 1]++;
+			for(int v = 0; v < size; v++)
+				reverseOffsets[v + 1] += reverseOffsets[v];
+			int[] next = new int[size];
+			System.arraycopy(reverseOffsets, 0, next, 0, size);
+			int[] reverseTargets = new int[targets.length];
+			float[] reverseWeights = new float[weights.length];
+			for(int v = 0; v < size; v++) {
+				for(int e = offsets[v]; e < offsets[v + 1]; e++) {
+					int slot = next[targets[e]]++;
+					reverseTargets[slot] = v;
+					reverseWeights[slot] = weights[e];
+				}
+			}
+			CompactGraph graph = new CompactGraph(ids, vertices,
+					reverseOffsets, reverseTargets, reverseWeights);
+			graph.reverse = this;
+			reverse = graph;
+		}
+		return reverse;
+	}
+}
@@ -0,0 +1,69 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of float values backed by a primitive array, for building
+ * sequences of distances and weights without boxing.
+ * @author rohithrokkam
+ */
+public class FloatList {
+
+	/* The values in this list, followed by unused capacity. */
+	private float[] values;
+
+	/* The number of values in this list. */
+	private int size;
+
+	/**
+	 * Construct an empty list.
+	 */
+	public FloatList() {
+		values = new float[16];
+		size = 0;
+	}
+
+	/**
+	 * Add a value to the end of this list.
+	 * @param value The value to be added.
+	 */
+	public void add(float value) {
+		if(size == values.length)
+			values = Arrays.copyOf(values, size * 2);
+		values[size++] = value;
+	}
+
+	/**
+	 * Return the value at the specified index.
+	 * @param index The index of the value.
+	 * @return The value at the specified index.
+	 */
+	public float get(int index) {
+		if(index < 0 || index >= size)
+			throw new IndexOutOfBoundsException();
+		return values[index];
+	}
+
+	/**
+	 * Return the number of values in this list.
+	 * @return The number of values in this list.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Remove every value from this list, keeping its capacity.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Return a copy of the values in this list.
+	 * @return An array holding the values in this list, in order.
+	 */
+	public float[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+}
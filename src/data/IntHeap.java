@@ -0,0 +1,144 @@
+package data;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of int values ordered by float keys. Values and keys are
+ * stored in parallel primitive arrays, so no boxing happens on insertion or
+ * removal. The heap does not support decrease-key; clients which need it
+ * should insert the value again with its new key and discard stale entries
+ * when they are polled (lazy deletion).
+ * @author rohithrokkam
+ */
+public class IntHeap {
+
+	/* The default number of entries the heap can hold before growing. */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/* The values held in this heap, in heap order. */
+	private int[] values;
+
+	/* The key of each value, in heap order. */
+	private float[] keys;
+
+	/* The number of entries in this heap. */
+	private int size;
+
+	/**
+	 * Construct an empty heap with a default capacity.
+	 */
+	public IntHeap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Construct an empty heap.
+	 * @param capacity The number of entries the heap can hold before growing.
+	 */
+	public IntHeap(int capacity) {
+		capacity = Math.max(capacity, 1);
+		values = new int[capacity];
+		keys = new float[capacity];
+		size = 0;
+	}
+
+	/**
+	 * Add a value to this heap with the specified key.
+	 * @param value The value to add.
+	 * @param key The key by which the value is ordered.
+	 */
+	public void add(int value, float key) {
+		if(size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+			keys = Arrays.copyOf(keys, size * 2);
+		}
+		int i = size++;
+		while(i > 0) { // Sift the new entry up.
+			int parent = (i - 1) >>> 1;
+			if(keys[parent] <= key)
+				break;
+			values[i] = values[parent];
+			keys[i] = keys[parent];
+			i = parent;
+		}
+		values[i] = value;
+		keys[i] = key;
+	}
+
+	/**
+	 * Return the value with the smallest key without removing it.
+	 * @throws NoSuchElementException if the heap is empty.
+	 * @return The value with the smallest key.
+	 */
+	public int peek() {
+		if(size == 0)
+			throw new NoSuchElementException();
+		return values[0];
+	}
+
+	/**
+	 * Return the smallest key in this heap, or Float.POSITIVE_INFINITY
+	 * if the heap is empty.
+	 * @return The smallest key in this heap.
+	 */
+	public float peekKey() {
+		if(size == 0)
+			return Float.POSITIVE_INFINITY;
+		return keys[0];
+	}
+
+	/**
+	 * Remove and return the value with the smallest key.
+	 * @throws NoSuchElementException if the heap is empty.
+	 * @return The value with the smallest key.
+	 */
+	public int poll() {
+		if(size == 0)
+			throw new NoSuchElementException();
+		int min = values[0];
+		size--;
+		if(size > 0) {
+			int value = values[size];
+			float key = keys[size];
+			int i = 0;
+			int child;
+			while((child = 2 * i + 1) < size) { // Sift the last entry down.
+				if(child + 1 < size && keys[child + 1] < keys[child])
+					child++;
+				if(key <= keys[child])
+					break;
+				values[i] = values[child];
+				keys[i] = keys[child];
+				i = child;
+			}
+			values[i] = value;
+			keys[i] = key;
+		}
+		return min;
+	}
+
+	/**
+	 * Return true if this heap has no entries, and false otherwise.
+	 * @return True if this heap has no entries, and false otherwise.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Return the number of entries in this heap, including stale ones.
+	 * @return The number of entries in this heap.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Remove every entry from this heap. The backing arrays are kept
+	 * so that the heap can be reused without reallocation.
+	 */
+	public void clear() {
+		size = 0;
+	}
+}
@@ -0,0 +1,80 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of int values backed by a primitive array, for building
+ * sequences of vertex ids without boxing.
+ * @author rohithrokkam
+ */
+public class IntList {
+
+	/* The values in this list, followed by unused capacity. */
+	private int[] values;
+
+	/* The number of values in this list. */
+	private int size;
+
+	/**
+	 * Construct an empty list.
+	 */
+	public IntList() {
+		values = new int[16];
+		size = 0;
+	}
+
+	/**
+	 * Add a value to the end of this list.
+	 * @param value The value to be added.
+	 */
+	public void add(int value) {
+		if(size == values.length)
+			values = Arrays.copyOf(values, size * 2);
+		values[size++] = value;
+	}
+
+	/**
+	 * Return the value at the specified index.
+	 * @param index The index of the value.
+	 * @return The value at the specified index.
+	 */
+	public int get(int index) {
+		if(index < 0 || index >= size)
+			throw new IndexOutOfBoundsException();
+		return values[index];
+	}
+
+	/**
+	 * Return the number of values in this list.
+	 * @return The number of values in this list.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Reverse the order of the values in this list.
+	 */
+	public void reverse() {
+		for(int i = 0, j = size - 1; i < j; i++, j--) {
+			int value = values[i];
+			values[i] = values[j];
+			values[j] = value;
+		}
+	}
+
+	/**
+	 * Remove every value from this list, keeping its capacity.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Return a copy of the values in this list.
+	 * @return An array holding the values in this list, in order.
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+}
@@ -1,5 +1,7 @@
 package data;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -7,12 +9,22 @@ import directions.Vertex;
 
 /**
  * An IteratorMap wrapper with helper method adjacentVertices() that allows
- * clients to search through an IteratorMap of vertices as a graph.
+ * clients to search through an IteratorMap of vertices as a graph. The length
+ * of every edge is computed once, when the graph is constructed, and kept with
+ * the adjacencies, so searches read stored weights instead of calling the
+ * distance() method of the vertices.
  * @author rohithrokkam
  * @param <K> The type of vertex elements in this graph.
  */
 public class IteratorGraph<K extends Vertex> extends IteratorMap<K, List<K>> {
 	
+	/* For each vertex, the length of the edge to each of its adjacent vertices,
+	   in the order of adjacentVertices(). */
+	private final Map<K, float[]> weights;
+	
+	/* The graph with every edge of this graph reversed, built on first use. */
+	private volatile IteratorGraph<K> reverse;
+	
 	/**
 	 * Warn the user if they attempt to construct an empty map, since
 	 * IteratorMaps are not mutable. This constructor will always throw
@@ -23,10 +35,29 @@ public class IteratorGraph<K extends Vertex> extends IteratorMap<K, List<K>> {
 	}
 	
 	/**
-	 * Construct a new IteratorMap backed by another type of map.
+	 * Construct a new IteratorMap backed by another type of map. The length of
+	 * every edge is taken from the distance() method of its first vertex.
 	 */
 	public IteratorGraph(Map<K, List<K>> elements) {
 		super(elements);
+		weights = new HashMap<K, float[]>(elements.size() * 2);
+		for(Map.Entry<K, List<K>> entry : elements.entrySet()) {
+			K v = entry.getKey();
+			List<K> adjacent = entry.getValue();
+			float[] lengths = new float[adjacent.size()];
+			for(int i = 0; i < lengths.length; i++)
+				lengths[i] = v.distance(adjacent.get(i));
+			weights.put(v, lengths);
+		}
+	}
+	
+	/**
+	 * Construct a new IteratorMap backed by another type of map, with edge
+	 * lengths already known.
+	 */
+	private IteratorGraph(Map<K, List<K>> elements, Map<K, float[]> weights) {
+		super(elements);
+		this.weights = weights;
 	}
 	/**
 	 * Return a list of adjacent vertices. The result is identical to the result
@@ -37,4 +68,56 @@ public class IteratorGraph<K extends Vertex> extends IteratorMap<K, List<K>> {
 	public List<K> adjacentVertices(Vertex v) {
 		return super.get(v);
 	}
+	
+	/**
+	 * Return the lengths of the edges from a vertex to its adjacent vertices.
+	 * The length at index i is the length of the edge to the vertex at index i
+	 * of adjacentVertices(v). The array must not be modified.
+	 * @param v The vertex whose edge lengths are to be found.
+	 * @return The lengths of the edges from the vertex v.
+	 */
+	public float[] weights(Vertex v) {
+		return weights.get(v);
+	}
+	
+	/**
+	 * Return a graph with the same vertices as this one, in which the adjacent
+	 * vertices of a vertex are the vertices that have it as an adjacent vertex
+	 * in this graph. One-way edges are therefore followed against their direction.
+	 * The reverse graph is built on the first call and shared afterwards, and the
+	 * reverse of the reverse graph is this graph.
+	 * @return A graph with every edge of this graph reversed.
+	 */
+	public IteratorGraph<K> reverse() {
+		if(reverse == null) {
+			Map<K, List<K>> reversed = new HashMap<K, List<K>>(size() * 2);
+			Map<K, List<Float>> lengths = new HashMap<K, List<Float>>(size() * 2);
+			for(K v : keySet()) {
+				reversed.put(v, new ArrayList<K>(2));
+				lengths.put(v, new ArrayList<Float>(2));
+			}
+			for(Map.Entry<K, List<K>> entry : entrySet()) {
+				List<K> adjacent = entry.getValue();
+				float[] edgeLengths = weights.get(entry.getKey());
+				for(int i = 0; i < adjacent.size(); i++) {
+					List<K> incoming = reversed.get(adjacent.get(i));
+					if(incoming != null) {
+						incoming.add(entry.getKey());
+						lengths.get(adjacent.get(i)).add(edgeLengths[i]);
+					}
+				}
+			}
+			Map<K, float[]> reversedWeights = new HashMap<K, float[]>(size() * 2);
+			for(Map.Entry<K, List<Float>> entry : lengths.entrySet()) {
+				float[] edgeLengths = new float[entry.getValue().size()];
+				for(int i = 0; i < edgeLengths.length; i++)
+					edgeLengths[i] = entry.getValue().get(i);
+				reversedWeights.put(entry.getKey(), edgeLengths);
+			}
+			IteratorGraph<K> graph = new IteratorGraph<K>(reversed, reversedWeights);
+			graph.reverse = this;
+			reverse = graph;
+		}
+		return reverse;
+	}
 }
@@ -41,6 +41,31 @@ public class IteratorMap<K, V> extends AbstractMap<K, V> implements Iterable<V>
 		return map.entrySet();
 	}
 
+	/**
+	 * Return the value mapped to the specified key by the backing map.
+	 * Delegating avoids the linear scan of AbstractMap.get().
+	 */
+	@Override
+	public V get(Object key) {
+		return map.get(key);
+	}
+
+	/**
+	 * Return true if the backing map contains the specified key.
+	 */
+	@Override
+	public boolean containsKey(Object key) {
+		return map.containsKey(key);
+	}
+
+	/**
+	 * Return the number of entries in the backing map.
+	 */
+	@Override
+	public int size() {
+		return map.size();
+	}
+
 	/**
 	 * Return an iterator over the entire set of elements held by this map.
 	 */
@@ -0,0 +1,117 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * A map from long keys to non-null values, backed by open-addressed primitive
+ * arrays, for looking up elements by numeric id without boxing the ids.
+ * @author rohithrokkam
+ * @param <V> The type of value in the map.
+ */
+public class LongMap<V> {
+
+	/* The keys of this map, at the slots of their values. */
+	private long[] keys;
+
+	/* The values of this map, or null at unused slots. */
+	private Object[] values;
+
+	/* The number of entries in this map. */
+	private int size;
+
+	/**
+	 * Construct an empty map.
+	 */
+	public LongMap() {
+		keys = new long[16];
+		values = new Object[16];
+		size = 0;
+	}
+
+	/**
+	 * Return the value for a key, or null if the key is not in this map.
+	 * @param key The key whose value is to be found.
+	 * @return The value for the key, or null if the key is not in this map.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int mask = keys.length - 1;
+		for(int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+			if(keys[i] == key)
+				return (V) values[i];
+		}
+		return null;
+	}
+
+	/**
+	 * Associate a value with a key, replacing any value it had.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry, which must not be null.
+	 * @return The previous value for the key, or null if it had none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		if(value == null)
+			throw new NullPointerException("null value for key " + key);
+		if(2 * (size + 1) > keys.length)
+			grow();
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+		for(; values[i] != null; i = (i + 1) & mask) {
+			if(keys[i] == key) {
+				V previous = (V) values[i];
+				values[i] = value;
+				return previous;
+			}
+		}
+		keys[i] = key;
+		values[i] = value;
+		size++;
+		return null;
+	}
+
+	/**
+	 * Return the number of entries in this map.
+	 * @return The number of entries in this map.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Remove every entry from this map.
+	 */
+	public void clear() {
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	/**
+	 * Double the capacity of this map, moving every entry to its new slot.
+	 */
+	private void grow() {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new Object[oldValues.length * 2];
+		int mask = keys.length - 1;
+		for(int j = 0; j < oldKeys.length; j++) {
+			if(oldValues[j] == null)
+				continue;
+			int i = slot(oldKeys[j], mask);
+			while(values[i] != null)
+				i = (i + 1) & mask;
+			keys[i] = oldKeys[j];
+			values[i] = oldValues[j];
+		}
+	}
+
+	/**
+	 * Return the first slot to probe for a key, mixing its bits so that
+	 * consecutive ids spread over the table.
+	 */
+	private static int slot(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+}
@@ -0,0 +1,48 @@
+package data;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * A lock-free pool of reusable objects, such as per-query search state.
+ * Objects are created on demand when the pool is empty, so a pool grows to
+ * the largest number of objects ever in use at once. Clients must return
+ * every object they take, and must not use an object after returning it.
+ * @author rohithrokkam
+ * @param <T> The type of pooled object.
+ */
+public class Pool<T> {
+
+	/* The objects which are not in use. */
+	private final Queue<T> idle;
+
+	/* Creates new objects when the pool is empty. */
+	private final Supplier<? extends T> factory;
+
+	/**
+	 * Construct an empty pool.
+	 * @param factory Creates new objects when the pool is empty.
+	 */
+	public Pool(Supplier<? extends T> factory) {
+		this.factory = factory;
+		idle = new ConcurrentLinkedQueue<T>();
+	}
+
+	/**
+	 * Take an object from this pool, creating one if none are idle.
+	 * @return An object which is not in use by any other client.
+	 */
+	public T take() {
+		T t = idle.poll();
+		return (t == null) ? factory.get() : t;
+	}
+
+	/**
+	 * Return an object taken from this pool so that it can be reused.
+	 * @param t The object to be returned.
+	 */
+	public void give(T t) {
+		idle.offer(t);
+	}
+}
@@ -0,0 +1,307 @@
+package data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import directions.Vertex;
+
+/**
+ * A compact graph in which every chain of vertices that only pass traffic
+ * through is collapsed into a single edge. OSM ways place a vertex at every
+ * node, so a curved street becomes dozens of vertices with two neighbors each,
+ * and a building outline becomes a ring of them. A vertex is removed if it has
+ * exactly two neighbors and is entered and left by the same two-way edges, or
+ * if it has exactly one edge in and one edge out to different vertices. The
+ * remaining vertices are kept, along with one vertex of every ring made only
+ * of removable vertices.
+ *
+ * Each edge of the simplified graph remembers the removed vertices along it
+ * (its geometry) and their distances from its tail, so a route over the
+ * simplified graph can be expanded back into every original vertex, and a
+ * route may begin or end at a removed vertex.
+ * @author rohithrokkam
+ */
+public class SimplifiedGraph {
+
+	/* The graph before simplification. */
+	private final CompactGraph original;
+
+	/* The graph of kept vertices and collapsed chains. */
+	private final CompactGraph graph;
+
+	/* The id in the simplified graph of each original vertex, or -1 if removed. */
+	private final int[] keptIds;
+
+	/* The original id of each vertex of the simplified graph. */
+	private final int[] originalIds;
+
+	/* The tail of each edge of the simplified graph. */
+	private final int[] tails;
+
+	/* For each edge, the range of its removed vertices in the arrays below. */
+	private final int[] geometryOffsets;
+
+	/* The original id of each removed vertex along an edge, in order. */
+	private final int[] geometry;
+
+	/* The distance along its edge from the tail to each removed vertex. */
+	private final float[] geometryDistances;
+
+	/* The edge along which each geometry slot lies. */
+	private final int[] slotEdges;
+
+	/* The first and second geometry slot of each removed vertex (a vertex on a
+	   two-way chain lies on the edges in both directions), or -1. */
+	private final int[] firstSlots;
+	private final int[] secondSlots;
+
+	/**
+	 * Simplify a compact graph.
+	 * @param original The graph to be simplified.
+	 */
+	public SimplifiedGraph(CompactGraph original) {
+		this.original = original;
+		int size = original.size();
+		CompactGraph reverse = original.reverse();
+		boolean[] kept = new boolean[size];
+		for(int v = 0; v < size; v++)
+			kept[v] = !isRemovable(original, reverse, v);
+
+		IntList tailList = new IntList();
+		IntList targetList = new IntList();
+		FloatList weightList = new FloatList();
+		IntList offsetList = new IntList();
+		IntList geometryList = new IntList();
+		FloatList distanceList = new FloatList();
+		boolean[] walked = new boolean[size];
+		for(int pass = 0; pass < 2; pass++) {
+			for(int v = 0; v < size; v++) {
+				if(!kept[v]) {
+					// On the second pass, an unwalked removable vertex lies on a
+					// ring of removable vertices, so keep it to anchor the ring.
+					if(pass == 0 || walked[v])
+						continue;
+					kept[v] = true;
+				} else if(pass == 1) {
+					continue;
+				}
+				for(int e = original.begin(v), end = original.end(v); e < end; e++) {
+					offsetList.add(geometryList.size());
+					int previous = v;
+					int current = original.target(e);
+					float distance = original.weight(e);
+					while(!kept[current]) {
+						walked[current] = true;
+						geometryList.add(current);
+						distanceList.add(distance);
+						int next = original.begin(current);
+						if(original.end(current) - next == 2 && original.target(next) == previous)
+							next++;
+						distance += original.weight(next);
+						previous = current;
+						current = original.target(next);
+					}
+					tailList.add(v);
+					targetList.add(current);
+					weightList.add(distance);
+				}
+			}
+		}
+		offsetList.add(geometryList.size());
+
+		keptIds = new int[size];
+		int keptCount = 0;
+		for(int v = 0; v < size; v++)
+			keptIds[v] = kept[v] ? keptCount++ : -1;
+		originalIds = new int[keptCount];
+		Map<Vertex, Integer> ids = new HashMap<Vertex, Integer>(keptCount * 2);
+		Vertex[] vertices = new Vertex[keptCount];
+		for(int v = 0; v < size; v++) {
+			if(kept[v]) {
+				originalIds[keptIds[v]] = v;
+				vertices[keptIds[v]] = original.vertex(v);
+				ids.put(original.vertex(v), keptIds[v]);
+			}
+		}
+
+		// Sort the edges by tail into compressed sparse row order.
+		int edgeCount = tailList.size();
+		int[] offsets = new int[keptCount + 1];
+		for(int i = 0; i < edgeCount; i++)
+			offsets[keptIds[tailList.get(i)] + 1]++;
+		for(int v = 0; v < keptCount; v++)
+			offsets[v + 1] += offsets[v];
+		int[] next = new int[keptCount];
+		System.arraycopy(offsets, 0, next, 0, keptCount);
+		int[] targets = new int[edgeCount];
+		float[] weights = new float[edgeCount];
+		tails = new int[edgeCount];
+		geometryOffsets = new int[edgeCount + 1];
+		geometry = new int[geometryList.size()];
+		geometryDistances = new float[geometryList.size()];
+		slotEdges = new int[geometryList.size()];
+		int[] order = new int[edgeCount]; // The new number of each edge.
+		for(int i = 0; i < edgeCount; i++) {
+			int e = next[keptIds[tailList.get(i)]]++;
+			order[i] = e;
+			tails[e] = keptIds[tailList.get(i)];
+			targets[e] = keptIds[targetList.get(i)];
+			weights[e] = weightList.get(i);
+			geometryOffsets[e + 1] = offsetList.get(i + 1) - offsetList.get(i);
+		}
+		for(int e = 0; e < edgeCount; e++)
+			geometryOffsets[e + 1] += geometryOffsets[e];
+		firstSlots = new int[size];
+		secondSlots = new int[size];
+		Arrays.fill(firstSlots, -1);
+		Arrays.fill(secondSlots, -1);
+		for(int i = 0; i < edgeCount; i++) {
+			int e = order[i];
+			int slot = geometryOffsets[e];
+			for(int j = offsetList.get(i); j < offsetList.get(i + 1); j++, slot++) {
+				int v = geometryList.get(j);
+				geometry[slot] = v;
+				geometryDistances[slot] = distanceList.get(j);
+				slotEdges[slot] = e;
+				if(firstSlots[v] == -1)
+					firstSlots[v] = slot;
+				else
+					secondSlots[v] = slot;
+			}
+		}
+		graph = new CompactGraph(ids, vertices, offsets, targets, weights);
+	}
+
+	/**
+	 * Return true if a vertex only passes traffic through from one neighbor
+	 * to another: it has two neighbors, joined to it by two-way edges, or one
+	 * edge in from one neighbor and one edge out to another.
+	 */
+	private static boolean isRemovable(CompactGraph graph, CompactGraph reverse, int v) {
+		int outDegree = graph.end(v) - graph.begin(v);
+		int inDegree = reverse.end(v) - reverse.begin(v);
+		if(outDegree == 1 && inDegree == 1) {
+			int out = graph.target(graph.begin(v));
+			int in = reverse.target(reverse.begin(v));
+			return out != in && out != v && in != v;
+		}
+		if(outDegree == 2 && inDegree == 2) {
+			int a = graph.target(graph.begin(v));
+			int b = graph.target(graph.begin(v) + 1);
+			int c = reverse.target(reverse.begin(v));
+			int d = reverse.target(reverse.begin(v) + 1);
+			return a != b && a != v && b != v
+					&& ((a == c && b == d) || (a == d && b == c));
+		}
+		return false;
+	}
+
+	/**
+	 * Return the graph before simplification.
+	 * @return The graph before simplification.
+	 */
+	public CompactGraph original() {
+		return original;
+	}
+
+	/**
+	 * Return the simplified graph, whose vertices are the kept vertices.
+	 * @return The simplified graph.
+	 */
+	public CompactGraph graph() {
+		return graph;
+	}
+
+	/**
+	 * Return the id in the simplified graph of an original vertex, or -1 if
+	 * the vertex was removed.
+	 * @param v The original id of the vertex.
+	 * @return The id of the vertex in the simplified graph, or -1.
+	 */
+	public int keptId(int v) {
+		return keptIds[v];
+	}
+
+	/**
+	 * Return the original id of a vertex of the simplified graph.
+	 * @param v The id of the vertex in the simplified graph.
+	 * @return The original id of the vertex.
+	 */
+	public int originalId(int v) {
+		return originalIds[v];
+	}
+
+	/**
+	 * Return the tail of an edge of the simplified graph.
+	 * @param e The number of the edge.
+	 * @return The id of the vertex at the tail of the edge.
+	 */
+	public int tail(int e) {
+		return tails[e];
+	}
+
+	/**
+	 * Return the first geometry slot of an edge of the simplified graph.
+	 * @param e The number of the edge.
+	 * @return The first geometry slot of the edge.
+	 */
+	public int geometryBegin(int e) {
+		return geometryOffsets[e];
+	}
+
+	/**
+	 * Return one more than the last geometry slot of an edge.
+	 * @param e The number of the edge.
+	 * @return The end of the range of geometry slots of the edge.
+	 */
+	public int geometryEnd(int e) {
+		return geometryOffsets[e + 1];
+	}
+
+	/**
+	 * Return the original id of the removed vertex in a geometry slot.
+	 * @param slot The geometry slot.
+	 * @return The original id of the vertex in the slot.
+	 */
+	public int geometryVertex(int slot) {
+		return geometry[slot];
+	}
+
+	/**
+	 * Return the distance along its edge from the tail to a geometry slot.
+	 * @param slot The geometry slot.
+	 * @return The distance from the tail of the edge to the slot.
+	 */
+	public float geometryDistance(int slot) {
+		return geometryDistances[slot];
+	}
+
+	/**
+	 * Return the edge along which a geometry slot lies.
+	 * @param slot The geometry slot.
+	 * @return The edge of the slot.
+	 */
+	public int slotEdge(int slot) {
+		return slotEdges[slot];
+	}
+
+	/**
+	 * Return the first geometry slot of an original vertex, or -1 if it was kept.
+	 * @param v The original id of the vertex.
+	 * @return The first geometry slot of the vertex, or -1.
+	 */
+	public int firstSlot(int v) {
+		return firstSlots[v];
+	}
+
+	/**
+	 * Return the second geometry slot of an original vertex, or -1 if it was
+	 * kept or lies on only one edge.
+	 * @param v The original id of the vertex.
+	 * @return The second geometry slot of the vertex, or -1.
+	 */
+	public int secondSlot(int v) {
+		return secondSlots[v];
+	}
+}
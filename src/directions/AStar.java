@@ -0,0 +1,127 @@
+package directions;
+
+import coordinates.Spherical2DCoordinates;
+import data.CompactGraph;
+import data.IteratorGraph;
+import elements.Element;
+import metric.HaversineMetric;
+import metric.Metric;
+
+/**
+ * An implementation of the A* algorithm. The search is guided toward the end
+ * vertex by the straight-line (great-circle) distance from each vertex to the
+ * end vertex.
+ *
+ * Edge weights are whatever the vertices' distance() method returns, which need
+ * not be the great-circle distance (the PolarMetric can be much shorter for
+ * east-west edges). To keep the estimate from overestimating, two lower bounds
+ * are computed, the great-circle distance and its north-south component, and
+ * each is scaled by the smallest ratio of edge weight to that bound over the edges
+ * of the graph. Both bounds obey the triangle inequality, so each scaled bound, and
+ * the larger of the two, is admissible and consistent for any such weights.
+ * @author rohithrokkam
+ */
+public class AStar extends HeapDjikstra {
+
+	/* The average radius of the earth in kilometers. */
+	private static final int EARTH_RADIUS = 6371;
+
+	/* The metric used for estimating remaining distances. */
+	private static final Metric<Spherical2DCoordinates, Float> metric =
+			HaversineMetric.getInstance();
+
+	/* The coordinates of each vertex, or null for vertices without coordinates. */
+	private final Spherical2DCoordinates[] coordinates;
+
+	/* The factor by which great-circle distances are scaled to give estimates. */
+	private float scale;
+
+	/* The factor by which north-south distances are scaled to give estimates. */
+	private float latitudeScale;
+
+	/**
+	 * Sets up for the execution of the A* algorithm over a graph.
+	 * @param graph The graph for computing directions.
+	 */
+	public AStar(IteratorGraph<? extends Vertex> graph) {
+		this(new CompactGraph(graph));
+	}
+
+	/**
+	 * Sets up for the execution of the A* algorithm over a compact graph.
+	 * @param graph The graph for computing directions.
+	 */
+	public AStar(CompactGraph graph) {
+		super(graph);
+		int size = graph.size();
+		coordinates = new Spherical2DCoordinates[size];
+		for(int id = 0; id < size; id++)
+			coordinates[id] = coordinates(graph.vertex(id));
+		findScales(graph);
+	}
+
+	/**
+	 * Return the larger of the scaled great-circle and north-south distances
+	 * from the vertex to the end vertex. Returns zero if either vertex has no
+	 * coordinates.
+	 * @return A lower bound on the distance from v to end.
+	 */
+	@Override
+	protected float estimate(int v, int end) {
+		Spherical2DCoordinates from = coordinates[v];
+		Spherical2DCoordinates to = coordinates[end];
+		if(from == null || to == null || v == end)
+			return 0F;
+		float estimate = latitudeScale * northSouth(from, to);
+		if(scale > 0F)
+			estimate = Math.max(estimate, scale * metric.distance(from, to));
+		return estimate;
+	}
+
+	/**
+	 * Find the smallest ratio of edge weight to great-circle edge length, and of
+	 * edge weight to north-south edge length, over every edge of the graph. Both
+	 * ratios are zero if the graph has an edge between vertices without coordinates.
+	 * @param graph The graph whose edges are to be checked.
+	 */
+	private void findScales(CompactGraph graph) {
+		float minRatio = Float.POSITIVE_INFINITY;
+		float minLatitudeRatio = Float.POSITIVE_INFINITY;
+		for(int v = 0; v < graph.size(); v++) {
+			Spherical2DCoordinates from = coordinates[v];
+			for(int e = graph.begin(v); e < graph.end(v); e++) {
+				Spherical2DCoordinates to = coordinates[graph.target(e)];
+				if(from == null || to == null) {
+					scale = latitudeScale = 0F;
+					return;
+				}
+				float weight = graph.weight(e);
+				float length = metric.distance(from, to);
+				if(length > 0F)
+					minRatio = Math.min(minRatio, weight / length);
+				length = northSouth(from, to);
+				if(length > 0F)
+					minLatitudeRatio = Math.min(minLatitudeRatio, weight / length);
+			}
+		}
+		scale = (minRatio == Float.POSITIVE_INFINITY) ? 0F : minRatio;
+		latitudeScale = (minLatitudeRatio == Float.POSITIVE_INFINITY) ? 0F : minLatitudeRatio;
+	}
+
+	/**
+	 * Return the north-south component of the distance between two points,
+	 * in kilometers.
+	 */
+	private static float northSouth(Spherical2DCoordinates from, Spherical2DCoordinates to) {
+		return (float) (Math.abs(from.getLat() - to.getLat()) * Math.PI / 180 * EARTH_RADIUS);
+	}
+
+	/**
+	 * Return the coordinates of a vertex, or null if it has none.
+	 */
+	private static Spherical2DCoordinates coordinates(Vertex v) {
+		if(v instanceof Element)
+			return ((Element) v).coordinates();
+		return null;
+	}
+}
@@ -0,0 +1,394 @@
+package directions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import data.CompactGraph;
+import data.IntList;
+import data.IteratorGraph;
+import data.Pool;
+
+/**
+ * Finds alternatives to the shortest route by the via-vertex method, from the
+ * search space of one bidirectional Djikstra query. Once the searches have met
+ * and found the shortest route, each keeps going until its frontier passes the
+ * longest length an alternative may have. Every vertex settled by both
+ * searches is then a candidate: the forward route to it and the backward route
+ * from it join into a route through it of known length.
+ *
+ * Candidates are examined shortest first. A route is accepted if it visits no
+ * vertex twice and shares no more than a fraction of the shortest route's
+ * length with the shortest route and the alternatives already accepted. Every
+ * vertex on an examined route is dropped as a candidate, since the routes
+ * through it would mostly repeat that one.
+ * Queries take their state from a pool, so they may run concurrently.
+ * @author rohithrokkam
+ */
+public class AlternativeRoutes implements DirectionStrategy {
+
+	/* The default factor by which an alternative may exceed the shortest route. */
+	public static final float DEFAULT_STRETCH = 1.25F;
+
+	/* The default fraction of the shortest route's length an alternative may share. */
+	public static final float DEFAULT_SHARING = 0.8F;
+
+	/* The largest number of candidate routes examined by one query. */
+	private static final int MAX_EXAMINED = 64;
+
+	/* The graph for computing directions. */
+	private final CompactGraph graph;
+
+	/* The graph with every edge reversed, for the backward search. */
+	private final CompactGraph reverse;
+
+	/* The factor by which an alternative may exceed the shortest route. */
+	private final float stretch;
+
+	/* The fraction of the shortest route's length an alternative may share. */
+	private final float sharing;
+
+	/* Query states which are not in use. */
+	private final Pool<Query> queries;
+
+	/**
+	 * Sets up for finding alternative routes over a graph, with the default limits.
+	 * @param graph The graph for computing directions.
+	 */
+	public AlternativeRoutes(IteratorGraph<? extends Vertex> graph) {
+		this(new CompactGraph(graph));
+	}
+
+	/**
+	 * Sets up for finding alternative routes over a compact graph, with the
+	 * default limits.
+	 * @param graph The graph for computing directions.
+	 */
+	public AlternativeRoutes(CompactGraph graph) {
+		this(graph, DEFAULT_STRETCH, DEFAULT_SHARING);
+	}
+
+	/**
+	 * Sets up for finding alternative routes over a compact graph.
+	 * @param graph The graph for computing directions.
+	 * @param stretch The factor by which an alternative may exceed the shortest
+	 * route, at least 1.
+	 * @param sharing The fraction of the shortest route's length an alternative
+	 * may share with the shortest route and the other alternatives.
+	 */
+	public AlternativeRoutes(CompactGraph graph, float stretch, float sharing) {
+		if(!(stretch >= 1F) || stretch == Float.POSITIVE_INFINITY)
+			throw new IllegalArgumentException("stretch must be finite and at least 1: " + stretch);
+		if(!(sharing >= 0F && sharing <= 1F))
+			throw new IllegalArgumentException("sharing must be between 0 and 1: " + sharing);
+		this.graph = graph;
+		this.stretch = stretch;
+		this.sharing = sharing;
+		reverse = graph.reverse();
+		queries = new Pool<Query>(() -> new Query(graph.size()));
+	}
+
+	/**
+	 * Returns the directions which comprise the shortest path from the start vertex
+	 * to the end vertex, or NO_DIRECTIONS if there is no such path.
+	 * @return The directions which comprise the shortest path from the start vertex
+	 * to the end vertex.
+	 */
+	@Override
+	public Directions getDirections(Vertex start, Vertex end) {
+		return getRouteChoices(start, end, 0).primary();
+	}
+
+	/**
+	 * Return the shortest directions from the start vertex to the end vertex and
+	 * up to the specified number of alternatives to them.
+	 * @param start The start vertex for direction finding.
+	 * @param end The end vertex for direction finding.
+	 * @param count The largest number of alternatives to be found.
+	 * @return The shortest directions and their alternatives.
+	 */
+	public RouteChoices getRouteChoices(Vertex start, Vertex end, int count) {
+		return getRouteChoices(start, end, count, null);
+	}
+
+	/**
+	 * Return the shortest directions from the start vertex to the end vertex and
+	 * up to the specified number of alternatives to the directions shown. The
+	 * alternatives are measured against the shown directions in place of the
+	 * shortest ones found here, which may differ from them where routes tie.
+	 * @param start The start vertex for direction finding.
+	 * @param end The end vertex for direction finding.
+	 * @param count The largest number of alternatives to be found.
+	 * @param shown The directions from start to end already shown, found by
+	 * another strategy, or null.
+	 * @return The shortest directions and the alternatives to the shown ones.
+	 */
+	public RouteChoices getRouteChoices(Vertex start, Vertex end, int count, Directions shown) {
+		List<Directions> alternatives = new ArrayList<Directions>();
+		if(start == null || end == null)
+			return new RouteChoices(Directions.NO_DIRECTIONS, alternatives);
+		int source = graph.id(start);
+		int target = graph.id(end);
+		if(source == -1 || target == -1)
+			return new RouteChoices(Directions.NO_DIRECTIONS, alternatives);
+		int[] reference = ids(shown);
+		Query query = queries.take();
+		try {
+			return query.run(source, target, count, reference);
+		} finally {
+			queries.give(query);
+		}
+	}
+
+	/**
+	 * Return the ids of the vertices of directions, or null if there are none
+	 * or any of them is not in the graph.
+	 */
+	private int[] ids(Directions directions) {
+		if(directions == null || directions.size() == 0)
+			return null;
+		int[] ids = new int[directions.size()];
+		for(int i = 0; i < ids.length; i++) {
+			ids[i] = graph.id(directions.vertex(i));
+			if(ids[i] == -1)
+				return null;
+		}
+		return ids;
+	}
+
+	/**
+	 * The state of one query.
+	 */
+	private class Query {
+
+		/* The search from the start vertex. */
+		private final SearchContext forward;
+
+		/* The search from the end vertex, over the reverse graph. */
+		private final SearchContext backward;
+
+		/* The vertices settled by the forward search, in order. */
+		private final IntList forwardSettled = new IntList();
+
+		/* The query in which each vertex was last on an examined route, and in
+		   which it was last seen while examining the current one. */
+		private final int[] covered;
+		private final int[] visited;
+
+		/* The number of the current query, and of the current examined route. */
+		private int query;
+		private int examined;
+
+		/* The length of the shortest route found so far. */
+		private float bestDistance;
+
+		/* The vertex at which the shortest route found so far crosses from the
+		   forward search to the backward search, or -1 if there is none. */
+		private int meeting;
+
+		/**
+		 * Construct the state for queries over a graph of the specified size.
+		 */
+		private Query(int size) {
+			forward = new SearchContext(size);
+			backward = new SearchContext(size);
+			covered = new int[size];
+			visited = new int[size];
+		}
+
+		/**
+		 * Find the shortest directions from one vertex to another, and up to
+		 * the specified number of alternatives to the reference route, or to
+		 * the shortest directions if it is null.
+		 */
+		private RouteChoices run(int source, int target, int count, int[] reference) {
+			List<Directions> alternatives = new ArrayList<Directions>();
+			bestDistance = Float.POSITIVE_INFINITY;
+			meeting = -1;
+			forwardSettled.clear();
+			forward.begin(source, 0F);
+			backward.begin(target, 0F);
+			if(source == target) {
+				bestDistance = 0F;
+				meeting = source;
+			}
+			while(!forward.toVisit.isEmpty() || !backward.toVisit.isEmpty()) {
+				float forwardKey = forward.toVisit.peekKey();
+				float backwardKey = backward.toVisit.peekKey();
+				if(forwardKey + backwardKey >= bestDistance)
+					break;
+				if(forward.isInterrupted())
+					return new RouteChoices(Directions.NO_DIRECTIONS, alternatives);
+				if(forwardKey <= backwardKey)
+					step(forward, backward, false);
+				else
+					step(backward, forward, true);
+			}
+			if(meeting == -1)
+				return new RouteChoices(Directions.NO_DIRECTIONS, alternatives);
+			int[] primary = routeThrough(meeting);
+			Directions shortest = directions(primary, meeting);
+			if(count <= 0 || bestDistance == 0F)
+				return new RouteChoices(shortest, alternatives);
+
+			// Grow both searches to every vertex an alternative could pass through.
+			float limit = stretch * bestDistance;
+			while(!forward.toVisit.isEmpty() && forward.toVisit.peekKey() <= limit) {
+				if(forward.isInterrupted())
+					return new RouteChoices(shortest, alternatives);
+				step(forward, backward, false);
+			}
+			while(!backward.toVisit.isEmpty() && backward.toVisit.peekKey() <= limit) {
+				if(backward.isInterrupted())
+					return new RouteChoices(shortest, alternatives);
+				step(backward, forward, true);
+			}
+
+			// Candidates in order of the length of the route through them.
+			long[] candidates = new long[forwardSettled.size()];
+			int candidateCount = 0;
+			for(int i = 0; i < forwardSettled.size(); i++) {
+				int v = forwardSettled.get(i);
+				if(!backward.isSettled(v))
+					continue;
+				float through = forward.distances[v] + backward.distances[v];
+				if(through <= limit)
+					candidates[candidateCount++] =
+							((long) Float.floatToRawIntBits(through) << 32) | v;
+			}
+			Arrays.sort(candidates, 0, candidateCount);
+
+			if(++query == Integer.MAX_VALUE) {
+				Arrays.fill(covered, 0);
+				Arrays.fill(visited, 0);
+				query = 1;
+				examined = 0;
+			}
+			Set<Long> taken = new HashSet<Long>(); // Edges of the accepted routes.
+			cover((reference == null) ? primary : reference, taken);
+			float allowed = sharing * bestDistance;
+			int remaining = MAX_EXAMINED;
+			for(int c = 0; c < candidateCount && alternatives.size() < count && remaining > 0; c++) {
+				int v = (int) candidates[c];
+				if(covered[v] == query)
+					continue;
+				remaining--;
+				int[] route = routeThrough(v);
+				if(!isSimple(route))
+					continue;
+				Directions directions = directions(route, v);
+				float shared = 0F;
+				for(int i = 1; i < route.length; i++) {
+					if(taken.contains(edgeKey(route[i - 1], route[i])))
+						shared += directions.distanceTo(i) - directions.distanceTo(i - 1);
+				}
+				if(shared <= allowed) {
+					alternatives.add(directions);
+					cover(route, taken);
+				} else {
+					cover(route, null);
+				}
+			}
+			return new RouteChoices(shortest, alternatives);
+		}
+
+		/**
+		 * Settle the next vertex of one search and relax its edges, recording
+		 * any shorter route through a vertex the other search has reached.
+		 * @param side The search to be advanced.
+		 * @param other The search in the opposite direction.
+		 * @param reversed Whether the advanced search is the backward one.
+		 */
+		private void step(SearchContext side, SearchContext other, boolean reversed) {
+			int v = side.toVisit.poll();
+			if(!side.settle(v)) // Stale entry.
+				return;
+			if(!reversed)
+				forwardSettled.add(v);
+			float distance = side.distances[v];
+			CompactGraph g = reversed ? reverse : graph;
+			for(int e = g.begin(v), end = g.end(v); e < end; e++) {
+				int adj = g.target(e);
+				if(side.isSettled(adj))
+					continue;
+				float newDistance = distance + g.weight(e);
+				if(!side.isReached(adj) || newDistance < side.distances[adj]) {
+					side.reach(adj, newDistance, v, e);
+					side.toVisit.add(adj, newDistance);
+					if(other.isReached(adj)) {
+						float total = newDistance + other.distances[adj];
+						if(total < bestDistance) {
+							bestDistance = total;
+							meeting = adj;
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Return the ids along the route from the start vertex to the end vertex
+		 * which follows the forward search to a vertex and the backward search
+		 * from it.
+		 */
+		private int[] routeThrough(int v) {
+			IntList route = new IntList();
+			for(int u = v; u != -1; u = forward.predecessors[u])
+				route.add(u);
+			route.reverse();
+			for(int u = backward.predecessors[v]; u != -1; u = backward.predecessors[u])
+				route.add(u);
+			return route.toArray();
+		}
+
+		/**
+		 * Return directions along a route through a vertex, with the distances
+		 * found by the searches.
+		 */
+		private Directions directions(int[] route, int through) {
+			float[] distances = new float[route.length];
+			float total = forward.distances[through] + backward.distances[through];
+			boolean beyond = false; // Whether the route has passed the via vertex.
+			for(int i = 0; i < route.length; i++) {
+				distances[i] = beyond ? total - backward.distances[route[i]] : forward.distances[route[i]];
+				if(route[i] == through)
+					beyond = true;
+			}
+			return new Directions(graph, route, distances);
+		}
+
+		/**
+		 * Return true if a route visits no vertex twice.
+		 */
+		private boolean isSimple(int[] route) {
+			examined++;
+			for(int v : route) {
+				if(visited[v] == examined)
+					return false;
+				visited[v] = examined;
+			}
+			return true;
+		}
+
+		/**
+		 * Drop every vertex of a route as a candidate, and add its edges to the
+		 * set of taken edges if one is given.
+		 */
+		private void cover(int[] route, Set<Long> taken) {
+			for(int i = 0; i < route.length; i++) {
+				covered[route[i]] = query;
+				if(taken != null && i > 0)
+					taken.add(edgeKey(route[i - 1], route[i]));
+			}
+		}
+	}
+
+	/**
+	 * Return a key for the edge between two vertices.
+	 */
+	private static long edgeKey(int from, int to) {
+		return ((long) from << 32) | (to & 0xFFFFFFFFL);
+	}
+}
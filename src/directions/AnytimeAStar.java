@@ -0,0 +1,176 @@
+package directions;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import data.CompactGraph;
+import data.Pool;
+
+/**
+ * An anytime A* search, for callers who would rather have a good route soon
+ * than the shortest route late, such as rerouting a driver who has gone off
+ * course. The search runs weighted A*, with the estimate multiplied by each
+ * weight of a schedule in turn, from a large weight which heads almost straight
+ * for the end vertex down to a weight of 1, which is plain A*. Each pass keeps
+ * the shortest route found so far and skips vertices which cannot improve on
+ * it. A pass with weight w proves the route found to be no longer than w times
+ * the shortest.
+ *
+ * When the deadline expires the search stops and returns the best complete
+ * route found, with the bound proven for it, so a query never takes much longer
+ * than its deadline. Each pass begins a new search rather than repairing the
+ * previous one; the early passes are cheap, and pruning by the best route
+ * found keeps the later ones small.
+ *
+ * The estimate is taken from another A* strategy, such as AStar or
+ * LandmarkAStar, over the same graph. Queries take their state from a pool, so
+ * they may run concurrently.
+ * @author rohithrokkam
+ */
+public class AnytimeAStar implements DirectionStrategy {
+
+	/* The default weights of the passes, ending with plain A*. */
+	public static final float[] DEFAULT_SCHEDULE = { 3F, 2F, 1.5F, 1.25F, 1.1F, 1F };
+
+	/* The number of vertices settled between checks of the clock. */
+	private static final int CLOCK_INTERVAL = 64;
+
+	/* The strategy whose estimate guides the search. */
+	private final HeapDjikstra guide;
+
+	/* The graph for computing directions. */
+	private final CompactGraph graph;
+
+	/* The weights of the passes, in the order they are run. */
+	private final float[] schedule;
+
+	/* The time allowed for getDirections(), in nanoseconds. */
+	private final long deadline;
+
+	/* Search contexts which are not in use by a query. */
+	private final Pool<SearchContext> contexts;
+
+	/**
+	 * Sets up for anytime searches guided by another A* strategy, with the
+	 * default schedule and no deadline for getDirections().
+	 * @param guide The strategy whose estimate guides the search.
+	 */
+	public AnytimeAStar(HeapDjikstra guide) {
+		this(guide, DEFAULT_SCHEDULE, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Sets up for anytime searches guided by another A* strategy.
+	 * @param guide The strategy whose estimate guides the search.
+	 * @param schedule The weights of the passes, decreasing, ending with 1.
+	 * @param deadline The time allowed for getDirections().
+	 * @param unit The unit of the deadline.
+	 */
+	public AnytimeAStar(HeapDjikstra guide, float[] schedule, long deadline, TimeUnit unit) {
+		if(schedule.length == 0 || schedule[schedule.length - 1] != 1F)
+			throw new IllegalArgumentException("schedule must end with a weight of 1: "
+					+ Arrays.toString(schedule));
+		for(int i = 0; i < schedule.length; i++) {
+			if(!(schedule[i] >= 1F) || (i > 0 && schedule[i] > schedule[i - 1]))
+				throw new IllegalArgumentException("schedule must decrease to 1: "
+						+ Arrays.toString(schedule));
+		}
+		this.guide = guide;
+		this.graph = guide.graph();
+		this.schedule = schedule.clone();
+		this.deadline = unit.toNanos(deadline);
+		int size = graph.size();
+		contexts = new Pool<SearchContext>(() -> new SearchContext(size));
+	}
+
+	/**
+	 * Returns the best directions from the start vertex to the end vertex found
+	 * within the deadline given on construction, or NO_DIRECTIONS if none were.
+	 * @return The best directions from the start vertex to the end vertex.
+	 */
+	@Override
+	public Directions getDirections(Vertex start, Vertex end) {
+		return getDirections(start, end, deadline, TimeUnit.NANOSECONDS).directions();
+	}
+
+	/**
+	 * Return the best directions from the start vertex to the end vertex found
+	 * within a deadline, with the bound proven for them.
+	 * @param start The start vertex for direction finding.
+	 * @param end The end vertex for direction finding.
+	 * @param timeout The time allowed for the search.
+	 * @param unit The unit of the timeout.
+	 * @return The best directions found and the factor by which they may exceed
+	 * the shortest.
+	 */
+	public AnytimeResult getDirections(Vertex start, Vertex end, long timeout, TimeUnit unit) {
+		long begun = System.nanoTime();
+		long allowed = unit.toNanos(timeout);
+		if(start == null || end == null)
+			return new AnytimeResult(Directions.NO_DIRECTIONS, 1F);
+		int source = graph.id(start);
+		int target = graph.id(end);
+		if(source == -1 || target == -1 || guide.estimate(source, target) == Float.POSITIVE_INFINITY)
+			return new AnytimeResult(Directions.NO_DIRECTIONS, 1F);
+		SearchContext context = contexts.take();
+		try {
+			Directions best = Directions.NO_DIRECTIONS;
+			float bestDistance = Float.POSITIVE_INFINITY;
+			float bound = Float.POSITIVE_INFINITY;
+			for(float weight : schedule) {
+				Directions found = pass(context, source, target, weight, bestDistance,
+						begun, allowed);
+				if(found == null)
+					break; // Out of time.
+				if(found != Directions.NO_DIRECTIONS) {
+					best = found;
+					bestDistance = found.length();
+				}
+				bound = weight;
+			}
+			return new AnytimeResult(best, bound);
+		} finally {
+			contexts.give(context);
+		}
+	}
+
+	/**
+	 * Run one pass of weighted A*, skipping vertices whose routes cannot be
+	 * shorter than the best found so far.
+	 * @return The directions to the end vertex if they are shorter than the best
+	 * found so far, NO_DIRECTIONS if they are not, or null if time ran out or
+	 * the thread was interrupted.
+	 */
+	private Directions pass(SearchContext context, int source, int target, float weight,
+			float bestDistance, long begun, long allowed) {
+		context.begin(source, weight * guide.estimate(source, target));
+		int sinceCheck = 0;
+		while(!context.toVisit.isEmpty()) {
+			int v = context.toVisit.poll();
+			if(!context.settle(v)) // Stale entry.
+				continue;
+			if(v == target)
+				return context.routeTo(graph, v);
+			if(++sinceCheck == CLOCK_INTERVAL) {
+				if(System.nanoTime() - begun >= allowed || Thread.currentThread().isInterrupted())
+					return null;
+				sinceCheck = 0;
+			}
+			float distance = context.distances[v];
+			for(int e = graph.begin(v), end = graph.end(v); e < end; e++) {
+				int adj = graph.target(e);
+				if(context.isSettled(adj))
+					continue;
+				float newDistance = distance + graph.weight(e);
+				if(context.isReached(adj) && newDistance >= context.distances[adj])
+					continue;
+				float estimate = guide.estimate(adj, target);
+				if(newDistance + estimate >= bestDistance)
+					continue; // No shorter route to the end vertex through here.
+				context.reach(adj, newDistance, v, e);
+				context.toVisit.add(adj, newDistance + weight * estimate);
+			}
+		}
+		return Directions.NO_DIRECTIONS;
+	}
+}
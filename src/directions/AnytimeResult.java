@@ -0,0 +1,65 @@
+package directions;
+
+/**
+ * The best directions an anytime search found before its deadline, with a
+ * bound on how far from the shortest they may be. The length of the directions
+ * is at most the bound times the length of the shortest directions, so a bound
+ * of 1 means the directions are proven to be the shortest.
+ * @author rohithrokkam
+ */
+public class AnytimeResult {
+
+	/* The best directions found, or NO_DIRECTIONS. */
+	private final Directions directions;
+
+	/* The factor by which the directions may exceed the shortest, or
+	   Float.POSITIVE_INFINITY if nothing is proven. */
+	private final float bound;
+
+	/**
+	 * Construct the result of an anytime search.
+	 * @param directions The best directions found, or NO_DIRECTIONS.
+	 * @param bound The factor by which the directions may exceed the shortest.
+	 */
+	AnytimeResult(Directions directions, float bound) {
+		this.directions = directions;
+		this.bound = bound;
+	}
+
+	/**
+	 * Return the best directions found, or NO_DIRECTIONS if no route was found
+	 * before the deadline or there is no route.
+	 * @return The best directions found.
+	 */
+	public Directions directions() {
+		return directions;
+	}
+
+	/**
+	 * Return the factor by which the length of the directions may exceed the
+	 * length of the shortest directions, or Float.POSITIVE_INFINITY if the
+	 * search was stopped before proving any bound.
+	 * @return The factor by which the directions may exceed the shortest.
+	 */
+	public float bound() {
+		return bound;
+	}
+
+	/**
+	 * Return true if the directions are proven to be the shortest, or proven
+	 * not to exist.
+	 * @return True if the directions are proven to be the shortest.
+	 */
+	public boolean isOptimal() {
+		return bound == 1F;
+	}
+
+	/**
+	 * Return a description of this result.
+	 * @return A description of this result.
+	 */
+	@Override
+	public String toString() {
+		return directions + (isOptimal() ? " (shortest)" : " (within " + bound + "x of shortest)");
+	}
+}
@@ -0,0 +1,176 @@
+package directions;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Routes long lists of start and end pairs with any direction strategy, spread
+ * across the workers of a fork/join pool. The strategies keep their graphs
+ * immutable and take a search context from a pool for every query, so each
+ * worker ends up with a context of its own and the workers never share state.
+ *
+ * Results come back in the order of the pairs. stream() computes the pairs a
+ * chunk at a time and passes each chunk on before starting the next, so very
+ * long batches need not hold every route in memory at once. costs() keeps only
+ * the length of each route, which is read as soon as the route is found.
+ * @author rohithrokkam
+ */
+public class BatchRouter {
+
+	/* The default number of pairs computed before they are streamed. */
+	public static final int DEFAULT_CHUNK = 1024;
+
+	/* The largest number of pairs one task routes without splitting. */
+	private static final int SPLIT_THRESHOLD = 16;
+
+	/* The strategy which routes each pair. */
+	private final DirectionStrategy strategy;
+
+	/* The pool whose workers route the pairs. */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Construct a batch router which runs on the common fork/join pool.
+	 * @param strategy The strategy which routes each pair.
+	 */
+	public BatchRouter(DirectionStrategy strategy) {
+		this(strategy, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Construct a batch router which runs on a fork/join pool.
+	 * @param strategy The strategy which routes each pair.
+	 * @param pool The pool whose workers route the pairs.
+	 */
+	public BatchRouter(DirectionStrategy strategy, ForkJoinPool pool) {
+		this.strategy = strategy;
+		this.pool = pool;
+	}
+
+	/**
+	 * Return the directions for every pair of start and end vertices.
+	 * @param starts The start vertex of each pair.
+	 * @param ends The end vertex of each pair.
+	 * @return The directions for each pair, in order.
+	 */
+	public Directions[] directions(List<? extends Vertex> starts, List<? extends Vertex> ends) {
+		checkSizes(starts, ends);
+		Directions[] results = new Directions[starts.size()];
+		pool.invoke(new Batch(starts, ends, results, null, 0, results.length));
+		return results;
+	}
+
+	/**
+	 * Return the length of the route for every pair of start and end vertices,
+	 * or Float.POSITIVE_INFINITY for pairs with no route.
+	 * @param starts The start vertex of each pair.
+	 * @param ends The end vertex of each pair.
+	 * @return The length of the route for each pair, in order.
+	 */
+	public float[] costs(List<? extends Vertex> starts, List<? extends Vertex> ends) {
+		checkSizes(starts, ends);
+		float[] costs = new float[starts.size()];
+		pool.invoke(new Batch(starts, ends, null, costs, 0, costs.length));
+		return costs;
+	}
+
+	/**
+	 * Route every pair of start and end vertices, passing the directions to a
+	 * consumer in the order of the pairs, a chunk of pairs at a time.
+	 * @param starts The start vertex of each pair.
+	 * @param ends The end vertex of each pair.
+	 * @param chunk The number of pairs computed before they are passed on.
+	 * @param consumer Receives the directions for each pair, in order.
+	 */
+	public void stream(List<? extends Vertex> starts, List<? extends Vertex> ends,
+			int chunk, Consumer<? super Directions> consumer) {
+		checkSizes(starts, ends);
+		if(chunk < 1)
+			throw new IllegalArgumentException("chunk must be positive: " + chunk);
+		Directions[] results = new Directions[Math.min(chunk, starts.size())];
+		for(int begin = 0; begin < starts.size(); begin += chunk) {
+			int end = Math.min(begin + chunk, starts.size());
+			pool.invoke(new Batch(starts.subList(begin, end), ends.subList(begin, end),
+					results, null, 0, end - begin));
+			for(int i = 0; i < end - begin; i++) {
+				consumer.accept(results[i]);
+				results[i] = null;
+			}
+		}
+	}
+
+	/**
+	 * Return the length of a set of directions, or Float.POSITIVE_INFINITY if
+	 * no directions were found.
+	 * @param directions The directions whose length is to be found.
+	 * @return The length of the directions.
+	 */
+	public static float cost(Directions directions) {
+		return (directions.size() == 0) ? Float.POSITIVE_INFINITY : directions.length();
+	}
+
+	/**
+	 * Throw an IllegalArgumentException unless there are as many ends as starts.
+	 */
+	private static void checkSizes(List<? extends Vertex> starts, List<? extends Vertex> ends) {
+		if(starts.size() != ends.size())
+			throw new IllegalArgumentException("starts and ends differ in size: "
+					+ starts.size() + " != " + ends.size());
+	}
+
+	/**
+	 * A task which routes a range of pairs, splitting it in half until the
+	 * range is small.
+	 */
+	@SuppressWarnings("serial")
+	private class Batch extends RecursiveAction {
+
+		/* The start and end vertex of each pair. */
+		private final List<? extends Vertex> starts;
+		private final List<? extends Vertex> ends;
+
+		/* The array in which the directions for each pair are placed, or null. */
+		private final Directions[] results;
+
+		/* The array in which the length of the route for each pair is placed,
+		   or null. The directions are then dropped once their length is read. */
+		private final float[] costs;
+
+		/* The range of pairs routed by this task. */
+		private final int begin;
+		private final int end;
+
+		/**
+		 * Construct a task which routes the pairs from begin (inclusive) to
+		 * end (exclusive), placing either the directions or their lengths.
+		 */
+		private Batch(List<? extends Vertex> starts, List<? extends Vertex> ends,
+				Directions[] results, float[] costs, int begin, int end) {
+			this.starts = starts;
+			this.ends = ends;
+			this.results = results;
+			this.costs = costs;
+			this.begin = begin;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if(end - begin <= SPLIT_THRESHOLD) {
+				for(int i = begin; i < end; i++) {
+					Directions directions = strategy.getDirections(starts.get(i), ends.get(i));
+					if(costs != null)
+						costs[i] = cost(directions);
+					else
+						results[i] = directions;
+				}
+				return;
+			}
+			int middle = (begin + end) >>> 1;
+			invokeAll(new Batch(starts, ends, results, costs, begin, middle),
+					new Batch(starts, ends, results, costs, middle, end));
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package directions;
+
+import data.CompactGraph;
+import data.IntList;
+import data.IteratorGraph;
+import data.Pool;
+
+/**
+ * A bidirectional implementation of Djikstra's algorithm. One search runs forward
+ * from the start vertex over the graph, and another runs backward from the end
+ * vertex over the reverse graph, so one-way edges are only ever followed in their
+ * own direction. The search side with the smaller frontier key is advanced on each
+ * step, and the searches stop once the sum of their frontier keys is no smaller
+ * than the shortest route found through a vertex reached by both.
+ * Queries take their state from a pool, so they may run concurrently.
+ * @author rohithrokkam
+ */
+public class BidirectionalDjikstra implements DirectionStrategy {
+
+	/* The graph for computing directions. */
+	private final CompactGraph graph;
+
+	/* The graph with every edge reversed, for the backward search. */
+	private final CompactGraph reverse;
+
+	/* Query states which are not in use. */
+	private final Pool<Query> queries;
+
+	/**
+	 * Sets up for the execution of bidirectional Djikstra's algorithm over a graph.
+	 * @param graph The graph for computing directions.
+	 */
+	public BidirectionalDjikstra(IteratorGraph<? extends Vertex> graph) {
+		this(new CompactGraph(graph));
+	}
+
+	/**
+	 * Sets up for the execution of bidirectional Djikstra's algorithm over a
+	 * compact graph.
+	 * @param graph The graph for computing directions.
+	 */
+	public BidirectionalDjikstra(CompactGraph graph) {
+		this.graph = graph;
+		reverse = graph.reverse();
+		queries = new Pool<Query>(() -> new Query(graph.size()));
+	}
+
+	/**
+	 * Returns the directions which comprise the shortest path from the start vertex
+	 * to the end vertex, or NO_DIRECTIONS if there is no such path.
+	 * @return The directions which comprise the shortest path from the start vertex
+	 * to the end vertex.
+	 */
+	@Override
+	public Directions getDirections(Vertex start, Vertex end) {
+		if(start == null || end == null)
+			return Directions.NO_DIRECTIONS;
+		int source = graph.id(start);
+		int target = graph.id(end);
+		if(source == -1 || target == -1)
+			return Directions.NO_DIRECTIONS;
+		Query query = queries.take();
+		try {
+			return query.run(source, target);
+		} finally {
+			queries.give(query);
+		}
+	}
+
+	/**
+	 * The state of one bidirectional query.
+	 */
+	private class Query {
+
+		/* The search from the start vertex. */
+		private final SearchContext forward;
+
+		/* The search from the end vertex, over the reverse graph. */
+		private final SearchContext backward;
+
+		/* The length of the shortest route found so far. */
+		private float bestDistance;
+
+		/* The vertex at which the shortest route found so far crosses from the
+		   forward search to the backward search, or -1 if there is none. */
+		private int meeting;
+
+		/**
+		 * Construct the state for queries over a graph of the specified size.
+		 */
+		private Query(int size) {
+			forward = new SearchContext(size);
+			backward = new SearchContext(size);
+		}
+
+		/**
+		 * Find the directions from one vertex to another.
+		 */
+		private Directions run(int source, int target) {
+			bestDistance = Float.POSITIVE_INFINITY;
+			meeting = -1;
+			forward.begin(source, 0F);
+			backward.begin(target, 0F);
+			if(source == target) {
+				bestDistance = 0F;
+				meeting = source;
+			}
+			while(!forward.toVisit.isEmpty() || !backward.toVisit.isEmpty()) {
+				float forwardKey = forward.toVisit.peekKey();
+				float backwardKey = backward.toVisit.peekKey();
+				if(forwardKey + backwardKey >= bestDistance)
+					break;
+				if(forward.isInterrupted())
+					return Directions.NO_DIRECTIONS; // The route is no longer wanted.
+				if(forwardKey <= backwardKey)
+					step(forward, backward, false);
+				else
+					step(backward, forward, true);
+			}
+			if(meeting == -1)
+				return Directions.NO_DIRECTIONS;
+			return getRouteThrough(meeting);
+		}
+
+		/**
+		 * Settle the next vertex of one search and relax its edges, recording
+		 * any shorter route through a vertex the other search has reached.
+		 * @param side The search to be advanced.
+		 * @param other The search in the opposite direction.
+		 * @param reversed Whether the advanced search is the backward one.
+		 */
+		private void step(SearchContext side, SearchContext other, boolean reversed) {
+			int v = side.toVisit.poll();
+			if(!side.settle(v)) // Stale entry.
+				return;
+			float distance = side.distances[v];
+			CompactGraph g = reversed ? reverse : graph;
+			for(int e = g.begin(v), end = g.end(v); e < end; e++) {
+				int adj = g.target(e);
+				if(side.isSettled(adj))
+					continue;
+				float newDistance = distance + g.weight(e);
+				if(!side.isReached(adj) || newDistance < side.distances[adj]) {
+					side.reach(adj, newDistance, v, e);
+					side.toVisit.add(adj, newDistance);
+					if(other.isReached(adj)) {
+						float total = newDistance + other.distances[adj];
+						if(total < bestDistance) {
+							bestDistance = total;
+							meeting = adj;
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Returns the directions from the start vertex to the end vertex through
+		 * the specified vertex, reached by both searches.
+		 * @param v The id of the vertex at which the searches meet.
+		 * @return The directions from the start vertex to the end vertex.
+		 */
+		private Directions getRouteThrough(int v) {
+			IntList route = new IntList();
+			for(int u = v; u != -1; u = forward.predecessors[u])
+				route.add(u);
+			route.reverse();
+			int meetingIndex = route.size() - 1;
+			for(int u = backward.predecessors[v]; u != -1; u = backward.predecessors[u])
+				route.add(u);
+			int[] ids = route.toArray();
+			float[] distances = new float[ids.length];
+			float total = forward.distances[v] + backward.distances[v];
+			for(int i = 0; i < ids.length; i++) // Backward distances run to the end vertex.
+				distances[i] = (i <= meetingIndex)
+						? forward.distances[ids[i]] : total - backward.distances[ids[i]];
+			return new Directions(graph, ids, distances);
+		}
+	}
+}
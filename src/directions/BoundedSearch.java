@@ -0,0 +1,105 @@
+package directions;
+
+import data.CompactGraph;
+import data.FloatList;
+import data.IntList;
+import data.IteratorGraph;
+import data.Pool;
+
+/**
+ * Distance-bounded Djikstra searches, for questions such as "everything
+ * reachable within X km of this node". A search stops expanding as soon as
+ * the nearest vertex left to visit is farther than the bound, so it only
+ * touches the vertices within the bound and the edges leaving them, and it
+ * answers for every vertex at once instead of one point-to-point query each.
+ * Searches take their state from a pool, so they may run concurrently.
+ * @author rohithrokkam
+ */
+public class BoundedSearch {
+
+	/* The graph for computing distances. */
+	private final CompactGraph graph;
+
+	/* Search contexts which are not in use. */
+	private final Pool<SearchContext> contexts;
+
+	/**
+	 * Sets up for bounded searches over a graph.
+	 * @param graph The graph for computing distances.
+	 */
+	public BoundedSearch(IteratorGraph<? extends Vertex> graph) {
+		this(new CompactGraph(graph));
+	}
+
+	/**
+	 * Sets up for bounded searches over a compact graph.
+	 * @param graph The graph for computing distances.
+	 */
+	public BoundedSearch(CompactGraph graph) {
+		this.graph = graph;
+		contexts = new Pool<SearchContext>(() -> new SearchContext(graph.size()));
+	}
+
+	/**
+	 * Return every vertex which can be reached from a vertex by a route no
+	 * longer than the bound, with the length of its shortest route.
+	 * @param origin The vertex at which routes begin.
+	 * @param bound The greatest length of a route.
+	 * @return The vertices within the bound of the origin, nearest first, or no
+	 * vertices if the origin is not in the graph.
+	 */
+	public Isochrone reachableFrom(Vertex origin, float bound) {
+		return search(graph, origin, bound);
+	}
+
+	/**
+	 * Return every vertex from which a vertex can be reached by a route no
+	 * longer than the bound, with the length of its shortest route.
+	 * @param destination The vertex at which routes end.
+	 * @param bound The greatest length of a route.
+	 * @return The vertices within the bound of the destination, nearest first,
+	 * or no vertices if the destination is not in the graph.
+	 */
+	public Isochrone reaching(Vertex destination, float bound) {
+		return search(graph.reverse(), destination, bound);
+	}
+
+	/**
+	 * Run a Djikstra search over a graph, or its reverse, until the nearest
+	 * vertex left to visit is farther than the bound.
+	 */
+	private Isochrone search(CompactGraph g, Vertex origin, float bound) {
+		int source = (origin == null) ? -1 : graph.id(origin);
+		IntList ids = new IntList();
+		FloatList distances = new FloatList();
+		if(source == -1 || !(bound >= 0F))
+			return new Isochrone(graph, ids.toArray(), distances.toArray());
+		SearchContext context = contexts.take();
+		try {
+			context.begin(source, 0F);
+			while(!context.toVisit.isEmpty() && context.toVisit.peekKey() <= bound) {
+				int v = context.toVisit.poll();
+				if(!context.settle(v)) // Stale entry.
+					continue;
+				float distance = context.distances[v];
+				ids.add(v);
+				distances.add(distance);
+				for(int e = g.begin(v), end = g.end(v); e < end; e++) {
+					int adj = g.target(e);
+					if(context.isSettled(adj))
+						continue;
+					float newDistance = distance + g.weight(e);
+					if(newDistance > bound)
+						continue; // Never within the bound by this edge.
+					if(!context.isReached(adj) || newDistance < context.distances[adj]) {
+						context.reach(adj, newDistance, v, e);
+						context.toVisit.add(adj, newDistance);
+					}
+				}
+			}
+		} finally {
+			contexts.give(context);
+		}
+		return new Isochrone(graph, ids.toArray(), distances.toArray());
+	}
+}
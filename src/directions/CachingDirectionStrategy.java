@@ -0,0 +1,160 @@
+package directions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A direction strategy which remembers the directions most recently found by
+ * another strategy, so that asking again for the directions between the same
+ * start and end vertices returns at once. At most a fixed number of routes are
+ * kept, and the least recently used route is dropped to make room for a new
+ * one. Each cache wraps a single strategy, so routes found by different
+ * strategies are never mixed up.
+ *
+ * Routes are computed outside the cache lock, so queries for different routes
+ * still run concurrently. The cache must be invalidated whenever the graph
+ * searched by the wrapped strategy changes.
+ * @author rohithrokkam
+ */
+public class CachingDirectionStrategy implements DirectionStrategy {
+
+	/* The default number of routes to keep. */
+	public static final int DEFAULT_CAPACITY = 64;
+
+	/* The strategy whose directions are cached. */
+	private final DirectionStrategy strategy;
+
+	/* The most recently used routes, least recently used first. */
+	private final Map<Key, Directions> routes;
+
+	/* The number of queries answered from the cache. */
+	private long hits;
+
+	/* The number of queries passed to the wrapped strategy. */
+	private long misses;
+
+	/* The number of times the cache has been invalidated, so that a route
+	   computed before an invalidation is not stored after it. */
+	private long generation;
+
+	/**
+	 * Construct a cache of the default capacity in front of a strategy.
+	 * @param strategy The strategy whose directions are cached.
+	 */
+	public CachingDirectionStrategy(DirectionStrategy strategy) {
+		this(strategy, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Construct a cache in front of a strategy.
+	 * @param strategy The strategy whose directions are cached.
+	 * @param capacity The largest number of routes to keep.
+	 */
+	@SuppressWarnings("serial")
+	public CachingDirectionStrategy(DirectionStrategy strategy, int capacity) {
+		if(capacity < 1)
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		this.strategy = strategy;
+		routes = new LinkedHashMap<Key, Directions>(capacity * 2, 0.75F, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Directions> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Return the directions from the start vertex to the end vertex, from the
+	 * cache if they have been found recently, and from the wrapped strategy
+	 * otherwise.
+	 * @return The directions from the start vertex to the end vertex.
+	 */
+	@Override
+	public Directions getDirections(Vertex start, Vertex end) {
+		Key key = new Key(start, end);
+		long queryGeneration;
+		synchronized(this) {
+			Directions directions = routes.get(key);
+			if(directions != null) {
+				hits++;
+				return directions;
+			}
+			misses++;
+			queryGeneration = generation;
+		}
+		Directions directions = strategy.getDirections(start, end);
+		if(Thread.currentThread().isInterrupted())
+			return directions; // The search may have given up; do not remember it.
+		synchronized(this) {
+			if(generation == queryGeneration)
+				routes.put(key, directions);
+		}
+		return directions;
+	}
+
+	/**
+	 * Forget every cached route. Must be called when the graph searched by
+	 * the wrapped strategy changes.
+	 */
+	public synchronized void invalidate() {
+		routes.clear();
+		generation++;
+	}
+
+	/**
+	 * Return the number of queries answered from the cache.
+	 * @return The number of queries answered from the cache.
+	 */
+	public synchronized long hits() {
+		return hits;
+	}
+
+	/**
+	 * Return the number of queries passed to the wrapped strategy.
+	 * @return The number of queries passed to the wrapped strategy.
+	 */
+	public synchronized long misses() {
+		return misses;
+	}
+
+	/**
+	 * The start and end vertices of a query.
+	 */
+	private static final class Key {
+
+		/* The start vertex of the query. */
+		private final Vertex start;
+
+		/* The end vertex of the query. */
+		private final Vertex end;
+
+		/**
+		 * Construct the key for a query.
+		 */
+		private Key(Vertex start, Vertex end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof Key))
+				return false;
+			Key other = (Key) o;
+			return equal(start, other.start) && equal(end, other.end);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * ((start == null) ? 0 : start.hashCode())
+					+ ((end == null) ? 0 : end.hashCode());
+		}
+
+		/**
+		 * Return true if two vertices, either of which may be null, are equal.
+		 */
+		private static boolean equal(Vertex a, Vertex b) {
+			return (a == null) ? b == null : a.equals(b);
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package directions;
+
+import data.CompactGraph;
+import data.IntList;
+import data.IteratorGraph;
+import data.Pool;
+import data.SimplifiedGraph;
+
+/**
+ * An implementation of Djikstra's algorithm over a graph whose chains of
+ * pass-through vertices have been collapsed into single edges (see
+ * SimplifiedGraph). The search settles only the kept vertices, which are far
+ * fewer than the original ones. A route may still begin or end at a removed
+ * vertex: the search then starts from the ends of the collapsed edges through
+ * the start vertex, and finishes at the tails of the collapsed edges through
+ * the end vertex. Routes are expanded back into every original vertex.
+ * Queries take their state from a pool, so they may run concurrently.
+ * @author rohithrokkam
+ */
+public class ChainDjikstra implements DirectionStrategy {
+
+	/* The simplified graph searched by this strategy. */
+	private final SimplifiedGraph simplified;
+
+	/* The graph of kept vertices and collapsed chains. */
+	private final CompactGraph graph;
+
+	/* The graph before simplification. */
+	private final CompactGraph original;
+
+	/* Search contexts which are not in use by a query. */
+	private final Pool<SearchContext> contexts;
+
+	/**
+	 * Sets up for the execution of Djikstra's algorithm over a simplified graph.
+	 * @param graph The graph for computing directions.
+	 */
+	public ChainDjikstra(IteratorGraph<? extends Vertex> graph) {
+		this(new SimplifiedGraph(new CompactGraph(graph)));
+	}
+
+	/**
+	 * Sets up for the execution of Djikstra's algorithm over a simplified graph.
+	 * @param simplified The simplified graph for computing directions.
+	 */
+	public ChainDjikstra(SimplifiedGraph simplified) {
+		this.simplified = simplified;
+		graph = simplified.graph();
+		original = simplified.original();
+		int size = graph.size();
+		contexts = new Pool<SearchContext>(() -> new SearchContext(size));
+	}
+
+	/**
+	 * Returns the directions which comprise the shortest path from the start vertex
+	 * to the end vertex, or NO_DIRECTIONS if there is no such path.
+	 * @return The directions which comprise the shortest path from the start vertex
+	 * to the end vertex.
+	 */
+	@Override
+	public Directions getDirections(Vertex start, Vertex end) {
+		if(start == null || end == null)
+			return Directions.NO_DIRECTIONS;
+		int source = original.id(start);
+		int target = original.id(end);
+		if(source == -1 || target == -1)
+			return Directions.NO_DIRECTIONS;
+		if(source == target)
+			return new Directions(original, new int[] { source }, new float[] { 0F });
+		SearchContext context = contexts.take();
+		try {
+			return search(context, source, target);
+		} finally {
+			contexts.give(context);
+		}
+	}
+
+	/**
+	 * Find the directions between two distinct original vertices.
+	 */
+	private Directions search(SearchContext context, int source, int target) {
+		int[] targetSlots = { simplified.firstSlot(target), simplified.secondSlot(target) };
+		int keptTarget = simplified.keptId(target);
+
+		// A route along one collapsed edge through both vertices needs no search.
+		float bestDistance = Float.POSITIVE_INFINITY;
+		int bestSlot = -1; // The slot of the end vertex on the best route, or -1.
+		int bestDirectSlot = -1; // The slot of the start vertex on a direct route.
+		for(int s : new int[] { simplified.firstSlot(source), simplified.secondSlot(source) }) {
+			for(int t : targetSlots) {
+				if(s != -1 && t != -1 && simplified.slotEdge(s) == simplified.slotEdge(t) && s < t) {
+					float distance = simplified.geometryDistance(t) - simplified.geometryDistance(s);
+					if(distance < bestDistance) {
+						bestDistance = distance;
+						bestSlot = t;
+						bestDirectSlot = s;
+					}
+				}
+			}
+		}
+
+		beginAt(context, source);
+		int meeting = -1; // The kept vertex at which the best searched route leaves the graph.
+		while(!context.toVisit.isEmpty() && context.toVisit.peekKey() < bestDistance) {
+			int v = context.toVisit.poll();
+			if(!context.settle(v)) // Stale entry.
+				continue;
+			if(context.isInterrupted())
+				return Directions.NO_DIRECTIONS; // The route is no longer wanted.
+			float distance = context.distances[v];
+			if(v == keptTarget && distance < bestDistance) {
+				bestDistance = distance;
+				meeting = v;
+				bestSlot = -1;
+				bestDirectSlot = -1;
+			}
+			for(int t : targetSlots) {
+				if(t != -1 && simplified.tail(simplified.slotEdge(t)) == v
+						&& distance + simplified.geometryDistance(t) < bestDistance) {
+					bestDistance = distance + simplified.geometryDistance(t);
+					meeting = v;
+					bestSlot = t;
+					bestDirectSlot = -1;
+				}
+			}
+			for(int e = graph.begin(v), end = graph.end(v); e < end; e++) {
+				int adj = graph.target(e);
+				if(context.isSettled(adj))
+					continue;
+				float newDistance = distance + graph.weight(e);
+				if(!context.isReached(adj) || newDistance < context.distances[adj]) {
+					context.reach(adj, newDistance, v, e);
+					context.toVisit.add(adj, newDistance);
+				}
+			}
+		}
+		if(bestDistance == Float.POSITIVE_INFINITY)
+			return Directions.NO_DIRECTIONS;
+
+		IntList route = new IntList(); // Original ids along the route.
+		if(bestDirectSlot != -1) {
+			for(int slot = bestDirectSlot; slot <= bestSlot; slot++)
+				route.add(simplified.geometryVertex(slot));
+		} else {
+			IntList kept = new IntList(); // Kept vertices from meeting back to the origin.
+			for(int v = meeting; v != -1; v = context.predecessors[v])
+				kept.add(v);
+			int origin = kept.get(kept.size() - 1);
+			int originEdge = context.edges[origin];
+			if(originEdge != -1) { // The start vertex lies on the edge to the origin.
+				int slot = slotOn(source, originEdge);
+				for(int end = simplified.geometryEnd(originEdge); slot < end; slot++)
+					route.add(simplified.geometryVertex(slot));
+			}
+			route.add(simplified.originalId(origin));
+			for(int i = kept.size() - 2; i >= 0; i--) {
+				int v = kept.get(i);
+				int e = context.edges[v];
+				for(int slot = simplified.geometryBegin(e); slot < simplified.geometryEnd(e); slot++)
+					route.add(simplified.geometryVertex(slot));
+				route.add(simplified.originalId(v));
+			}
+			if(bestSlot != -1) {
+				int e = simplified.slotEdge(bestSlot);
+				for(int slot = simplified.geometryBegin(e); slot <= bestSlot; slot++)
+					route.add(simplified.geometryVertex(slot));
+			}
+		}
+		return new Directions(original, route.toArray(), null);
+	}
+
+	/**
+	 * Begin a search at an original vertex: at the vertex itself if it was
+	 * kept, and otherwise at the heads of the collapsed edges through it.
+	 * The collapsed edge by which each head is entered is recorded as its edge.
+	 */
+	private void beginAt(SearchContext context, int source) {
+		int kept = simplified.keptId(source);
+		if(kept != -1) {
+			context.begin(kept, 0F);
+			return;
+		}
+		boolean begun = false;
+		for(int slot : new int[] { simplified.firstSlot(source), simplified.secondSlot(source) }) {
+			if(slot == -1)
+				continue;
+			int e = simplified.slotEdge(slot);
+			int head = graph.target(e);
+			float distance = graph.weight(e) - simplified.geometryDistance(slot);
+			if(!begun) {
+				context.begin(head, distance);
+				context.reach(head, distance, -1, e);
+				begun = true;
+			} else if(!context.isReached(head) || distance < context.distances[head]) {
+				context.reach(head, distance, -1, e);
+				context.toVisit.add(head, distance);
+			}
+		}
+	}
+
+	/**
+	 * Return the geometry slot of an original vertex on a collapsed edge.
+	 */
+	private int slotOn(int v, int e) {
+		int slot = simplified.firstSlot(v);
+		return (simplified.slotEdge(slot) == e) ? slot : simplified.secondSlot(v);
+	}
+}
@@ -0,0 +1,245 @@
+package directions;
+
+import java.util.Arrays;
+
+import data.CompactGraph;
+import data.IteratorGraph;
+
+/**
+ * The strongly connected components of a graph: the largest sets of vertices
+ * in which every vertex can reach every other. OSM graphs have many of them,
+ * because of one-way streets and service roads which are not connected to the
+ * road network, and a search between components which cannot reach each other
+ * explores everything reachable before it gives up.
+ *
+ * Components are found with an iterative version of Tarjan's algorithm, which
+ * numbers them in reverse topological order: if any vertex of one component can
+ * reach a vertex of another, the first component has the larger number. Along
+ * with the weakly connected components (the pieces the graph falls into when
+ * one-way edges are treated as two-way), this answers many reachability
+ * questions in constant time.
+ * @author rohithrokkam
+ */
+public class Components {
+
+	/* The graph whose components these are. */
+	private final CompactGraph graph;
+
+	/* The strongly connected component of each vertex. */
+	private final int[] components;
+
+	/* The number of vertices in each strongly connected component. */
+	private final int[] sizes;
+
+	/* The weakly connected component of each vertex. */
+	private final int[] pieces;
+
+	/* The strongly connected component with the most vertices, or -1. */
+	private final int largest;
+
+	/**
+	 * Find the components of a graph.
+	 * @param graph The graph whose components are to be found.
+	 */
+	public Components(IteratorGraph<? extends Vertex> graph) {
+		this(new CompactGraph(graph));
+	}
+
+	/**
+	 * Find the components of a compact graph.
+	 * @param graph The graph whose components are to be found.
+	 */
+	public Components(CompactGraph graph) {
+		this.graph = graph;
+		int size = graph.size();
+		components = new int[size];
+		int count = findStrongComponents();
+		sizes = new int[count];
+		for(int c : components)
+			sizes[c]++;
+		int best = -1;
+		for(int c = 0; c < count; c++)
+			if(best == -1 || sizes[c] > sizes[best])
+				best = c;
+		largest = best;
+		pieces = findWeakComponents();
+	}
+
+	/**
+	 * Return the number of strongly connected components.
+	 * @return The number of strongly connected components.
+	 */
+	public int count() {
+		return sizes.length;
+	}
+
+	/**
+	 * Return the strongly connected component of a vertex, or -1 if it is
+	 * not in the graph.
+	 * @param v The vertex whose component is to be found.
+	 * @return The strongly connected component of the vertex, or -1 if it is
+	 * not in the graph.
+	 */
+	public int component(Vertex v) {
+		int id = (v == null) ? -1 : graph.id(v);
+		return (id == -1) ? -1 : components[id];
+	}
+
+	/**
+	 * Return the number of vertices in a strongly connected component.
+	 * @param component The component whose size is to be found.
+	 * @return The number of vertices in the component.
+	 */
+	public int size(int component) {
+		return sizes[component];
+	}
+
+	/**
+	 * Return the strongly connected component with the most vertices, or -1
+	 * if the graph is empty.
+	 * @return The strongly connected component with the most vertices.
+	 */
+	public int largest() {
+		return largest;
+	}
+
+	/**
+	 * Return true if a vertex is in the largest strongly connected component.
+	 * @param v The vertex to be tested.
+	 * @return True if the vertex is in the largest strongly connected component.
+	 */
+	public boolean inLargest(Vertex v) {
+		int component = component(v);
+		return component != -1 && component == largest;
+	}
+
+	/**
+	 * Return false if there is certainly no route from one vertex to another.
+	 * A true result means a route is certain if both vertices are in the same
+	 * strongly connected component, and possible otherwise.
+	 * @param start The start vertex of the route.
+	 * @param end The end vertex of the route.
+	 * @return False if there is certainly no route from start to end.
+	 */
+	public boolean mayReach(Vertex start, Vertex end) {
+		int s = (start == null) ? -1 : graph.id(start);
+		int t = (end == null) ? -1 : graph.id(end);
+		if(s == -1 || t == -1)
+			return false;
+		return pieces[s] == pieces[t] && components[s] >= components[t];
+	}
+
+	/**
+	 * Return true if there is certainly a route from one vertex to another,
+	 * because both are in the same strongly connected component.
+	 * @param start The start vertex of the route.
+	 * @param end The end vertex of the route.
+	 * @return True if start and end are in the same strongly connected component.
+	 */
+	public boolean canReach(Vertex start, Vertex end) {
+		int component = component(start);
+		return component != -1 && component == component(end);
+	}
+
+	/**
+	 * Number the strongly connected components with Tarjan's algorithm, using
+	 * an explicit stack of vertices and edge positions instead of recursion,
+	 * which would overflow the call stack on long roads.
+	 * @return The number of components.
+	 */
+	private int findStrongComponents() {
+		int size = graph.size();
+		int[] index = new int[size]; // The order of discovery, from 1; 0 if unvisited.
+		int[] low = new int[size];
+		int[] edge = new int[size]; // The next edge to follow from each vertex.
+		boolean[] onStack = new boolean[size];
+		int[] stack = new int[size]; // Vertices not yet assigned to a component.
+		int[] callStack = new int[size]; // The vertices being explored.
+		int top = 0;
+		int callTop = 0;
+		int counter = 0;
+		int count = 0;
+		for(int root = 0; root < size; root++) {
+			if(index[root] != 0)
+				continue;
+			callStack[callTop++] = root;
+			index[root] = low[root] = ++counter;
+			edge[root] = graph.begin(root);
+			stack[top++] = root;
+			onStack[root] = true;
+			while(callTop > 0) {
+				int v = callStack[callTop - 1];
+				if(edge[v] < graph.end(v)) {
+					int w = graph.target(edge[v]++);
+					if(index[w] == 0) {
+						index[w] = low[w] = ++counter;
+						edge[w] = graph.begin(w);
+						stack[top++] = w;
+						onStack[w] = true;
+						callStack[callTop++] = w;
+					} else if(onStack[w]) {
+						low[v] = Math.min(low[v], index[w]);
+					}
+					continue;
+				}
+				callTop--;
+				if(callTop > 0) {
+					int parent = callStack[callTop - 1];
+					low[parent] = Math.min(low[parent], low[v]);
+				}
+				if(low[v] == index[v]) {
+					int w;
+					do {
+						w = stack[--top];
+						onStack[w] = false;
+						components[w] = count;
+					} while(w != v);
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Number the weakly connected components by searching from each vertex
+	 * not yet numbered, following edges in both directions.
+	 * @return The weakly connected component of each vertex.
+	 */
+	private int[] findWeakComponents() {
+		int size = graph.size();
+		CompactGraph reverse = graph.reverse();
+		int[] pieces = new int[size];
+		Arrays.fill(pieces, -1);
+		int[] toVisit = new int[size];
+		int count = 0;
+		for(int root = 0; root < size; root++) {
+			if(pieces[root] != -1)
+				continue;
+			int top = 0;
+			toVisit[top++] = root;
+			pieces[root] = count;
+			while(top > 0) {
+				int v = toVisit[--top];
+				for(int e = graph.begin(v), end = graph.end(v); e < end; e++)
+					top = visit(graph.target(e), count, pieces, toVisit, top);
+				for(int e = reverse.begin(v), end = reverse.end(v); e < end; e++)
+					top = visit(reverse.target(e), count, pieces, toVisit, top);
+			}
+			count++;
+		}
+		return pieces;
+	}
+
+	/**
+	 * Number a vertex and push it to be visited, if it is not yet numbered.
+	 * @return The new top of the stack of vertices to visit.
+	 */
+	private static int visit(int v, int piece, int[] pieces, int[] toVisit, int top) {
+		if(pieces[v] == -1) {
+			pieces[v] = piece;
+			toVisit[top++] = v;
+		}
+		return top;
+	}
+}
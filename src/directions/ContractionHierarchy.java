@@ -0,0 +1,472 @@
+package directions;
+
+import java.util.Arrays;
+
+import data.CompactGraph;
+import data.IntHeap;
+import data.IntList;
+import data.IteratorGraph;
+
+/**
+ * A contraction hierarchy over a graph of vertices. Vertices are contracted one
+ * at a time in order of importance: each contracted vertex is removed from the
+ * remaining graph, and a shortcut edge is added between two of its neighbors
+ * wherever the route through the contracted vertex is the only shortest route
+ * between them. The position of a vertex in this order is its rank.
+ *
+ * After preprocessing, every edge of the hierarchy either goes up (to a vertex
+ * of higher rank) or down. A shortest route always exists which goes only up from
+ * the start vertex and only down to the end vertex, so queries need only search
+ * upward from both ends (see HierarchyDjikstra). Every shortcut remembers the
+ * vertex it bypasses, so routes can be unpacked back into original vertices.
+ *
+ * The hierarchy is immutable once built and can be shared between strategies.
+ * @author rohithrokkam
+ */
+public class ContractionHierarchy {
+
+	/* The largest number of vertices a witness search may settle. */
+	private static final int WITNESS_SETTLE_LIMIT = 500;
+
+	/* The graph whose vertex ids are used by the hierarchy. */
+	private final CompactGraph graph;
+
+	/* The rank of each vertex in the contraction order. */
+	private final int[] ranks;
+
+	/* For each vertex, the range of its upward edges in the arrays below. */
+	private final int[] upOffsets;
+
+	/* The head of each upward edge. */
+	private final int[] upTargets;
+
+	/* The weight of each upward edge. */
+	private final float[] upWeights;
+
+	/* The vertex bypassed by each upward edge, or -1 for an original edge. */
+	private final int[] upMiddles;
+
+	/* For each vertex, the range of edges which come down to it from
+	   vertices of higher rank in the arrays below. */
+	private final int[] downOffsets;
+
+	/* The tail of each downward edge. */
+	private final int[] downSources;
+
+	/* The weight of each downward edge. */
+	private final float[] downWeights;
+
+	/* The vertex bypassed by each downward edge, or -1 for an original edge. */
+	private final int[] downMiddles;
+
+	/* The number of shortcut edges added during preprocessing. */
+	private final int shortcuts;
+
+	/**
+	 * Build a contraction hierarchy over a graph. Edge weights are taken
+	 * from the distance() method of the graph's vertices.
+	 * @param graph The graph to be preprocessed.
+	 */
+	public ContractionHierarchy(IteratorGraph<? extends Vertex> graph) {
+		this(new CompactGraph(graph));
+	}
+
+	/**
+	 * Build a contraction hierarchy over a compact graph. The hierarchy gives
+	 * its vertices the same ids as the graph.
+	 * @param graph The graph to be preprocessed.
+	 */
+	public ContractionHierarchy(CompactGraph graph) {
+		this.graph = graph;
+		int size = graph.size();
+		Contractor contractor = new Contractor(size);
+		for(int v = 0; v < size; v++) {
+			for(int e = graph.begin(v), end = graph.end(v); e < end; e++) {
+				int adj = graph.target(e);
+				if(adj != v)
+					contractor.addEdge(v, adj, graph.weight(e), -1);
+			}
+		}
+		ranks = contractor.contractAll();
+		shortcuts = contractor.shortcuts;
+
+		upOffsets = new int[size + 1];
+		downOffsets = new int[size + 1];
+		for(int v = 0; v < size; v++) {
+			upOffsets[v + 1] = upOffsets[v] + contractor.out[v].countAbove(ranks, ranks[v]);
+			downOffsets[v + 1] = downOffsets[v] + contractor.in[v].countAbove(ranks, ranks[v]);
+		}
+		upTargets = new int[upOffsets[size]];
+		upWeights = new float[upOffsets[size]];
+		upMiddles = new int[upOffsets[size]];
+		downSources = new int[downOffsets[size]];
+		downWeights = new float[downOffsets[size]];
+		downMiddles = new int[downOffsets[size]];
+		for(int v = 0; v < size; v++) {
+			contractor.out[v].copyAbove(ranks, ranks[v], upOffsets[v],
+					upTargets, upWeights, upMiddles);
+			contractor.in[v].copyAbove(ranks, ranks[v], downOffsets[v],
+					downSources, downWeights, downMiddles);
+		}
+	}
+
+	/**
+	 * Return the dense id of a vertex, or -1 if it is not in the hierarchy.
+	 * @param v The vertex whose id is to be found.
+	 * @return The dense id of the vertex, or -1 if it is not in the hierarchy.
+	 */
+	public int id(Vertex v) {
+		return graph.id(v);
+	}
+
+	/**
+	 * Return the vertex with the specified dense id.
+	 * @param id The dense id of the vertex.
+	 * @return The vertex with the specified id.
+	 */
+	public Vertex vertex(int id) {
+		return graph.vertex(id);
+	}
+
+	/**
+	 * Return the graph from which the hierarchy was built.
+	 * @return The graph from which the hierarchy was built.
+	 */
+	public CompactGraph graph() {
+		return graph;
+	}
+
+	/**
+	 * Return the number of vertices in the hierarchy.
+	 * @return The number of vertices in the hierarchy.
+	 */
+	public int size() {
+		return graph.size();
+	}
+
+	/**
+	 * Return the number of shortcut edges added during preprocessing.
+	 * @return The number of shortcut edges added during preprocessing.
+	 */
+	public int shortcuts() {
+		return shortcuts;
+	}
+
+	/* Accessors for the upward and downward edge arrays, used by queries. */
+	int upBegin(int v) { return upOffsets[v]; }
+	int upEnd(int v) { return upOffsets[v + 1]; }
+	int upTarget(int e) { return upTargets[e]; }
+	float upWeight(int e) { return upWeights[e]; }
+	int downBegin(int v) { return downOffsets[v]; }
+	int downEnd(int v) { return downOffsets[v + 1]; }
+	int downSource(int e) { return downSources[e]; }
+	float downWeight(int e) { return downWeights[e]; }
+
+	/**
+	 * Append the original vertices along the upward edge e, excluding its tail,
+	 * to the route.
+	 * @param tail The tail of the edge.
+	 * @param e The index of the upward edge.
+	 * @param route The route to which vertex ids are appended.
+	 */
+	void unpackUp(int tail, int e, IntList route) {
+		unpack(tail, upTargets[e], upMiddles[e], route);
+	}
+
+	/**
+	 * Append the original vertices along the downward edge e, excluding its tail,
+	 * to the route.
+	 * @param head The head of the edge.
+	 * @param e The index of the downward edge.
+	 * @param route The route to which vertex ids are appended.
+	 */
+	void unpackDown(int head, int e, IntList route) {
+		unpack(downSources[e], head, downMiddles[e], route);
+	}
+
+	/**
+	 * Append the original vertices along the edge from one vertex to another,
+	 * excluding the first vertex, to the route. A shortcut is replaced by the
+	 * two edges which meet at the vertex it bypasses. That vertex has lower rank
+	 * than both ends, so the first edge is a downward edge into it and the second
+	 * is an upward edge out of it.
+	 */
+	private void unpack(int from, int to, int middle, IntList route) {
+		if(middle == -1) {
+			route.add(to);
+			return;
+		}
+		int first = -1;
+		for(int e = downOffsets[middle]; e < downOffsets[middle + 1]; e++) {
+			if(downSources[e] == from) {
+				first = e;
+				break;
+			}
+		}
+		int second = -1;
+		for(int e = upOffsets[middle]; e < upOffsets[middle + 1]; e++) {
+			if(upTargets[e] == to) {
+				second = e;
+				break;
+			}
+		}
+		unpack(from, middle, downMiddles[first], route);
+		unpack(middle, to, upMiddles[second], route);
+	}
+
+	/**
+	 * A growable list of edges leaving (or entering) one vertex during preprocessing.
+	 */
+	private static class EdgeList {
+
+		/* The vertex at the other end of each edge. */
+		private int[] ends = new int[4];
+
+		/* The weight of each edge. */
+		private float[] weights = new float[4];
+
+		/* The vertex bypassed by each edge, or -1 for an original edge. */
+		private int[] middles = new int[4];
+
+		/* The number of edges in this list. */
+		private int size = 0;
+
+		/**
+		 * Return the index of the edge to the specified vertex, or -1.
+		 */
+		private int indexOf(int end) {
+			for(int i = 0; i < size; i++)
+				if(ends[i] == end)
+					return i;
+			return -1;
+		}
+
+		/**
+		 * Add an edge to this list, or lower the weight of the existing
+		 * edge to the same vertex.
+		 */
+		private void put(int end, float weight, int middle) {
+			int i = indexOf(end);
+			if(i == -1) {
+				if(size == ends.length) {
+					ends = Arrays.copyOf(ends, size * 2);
+					weights = Arrays.copyOf(weights, size * 2);
+					middles = Arrays.copyOf(middles, size * 2);
+				}
+				i = size++;
+			} else if(weights[i] <= weight) {
+				return;
+			}
+			ends[i] = end;
+			weights[i] = weight;
+			middles[i] = middle;
+		}
+
+		/**
+		 * Return the number of edges whose other end has a rank above the given one.
+		 */
+		private int countAbove(int[] ranks, int rank) {
+			int count = 0;
+			for(int i = 0; i < size; i++)
+				if(ranks[ends[i]] > rank)
+					count++;
+			return count;
+		}
+
+		/**
+		 * Copy the edges whose other end has a rank above the given one into
+		 * the specified arrays, starting at the offset.
+		 */
+		private void copyAbove(int[] ranks, int rank, int offset,
+				int[] toEnds, float[] toWeights, int[] toMiddles) {
+			for(int i = 0; i < size; i++) {
+				if(ranks[ends[i]] > rank) {
+					toEnds[offset] = ends[i];
+					toWeights[offset] = weights[i];
+					toMiddles[offset] = middles[i];
+					offset++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The working state of preprocessing: the remaining graph, the priority
+	 * of each remaining vertex, and a small Djikstra search for witnesses.
+	 */
+	private static class Contractor {
+
+		/* The edges leaving each vertex. */
+		private final EdgeList[] out;
+
+		/* The edges entering each vertex. */
+		private final EdgeList[] in;
+
+		/* Whether each vertex has been contracted. */
+		private final boolean[] contracted;
+
+		/* The number of contracted neighbors of each vertex. */
+		private final int[] contractedNeighbors;
+
+		/* The number of shortcuts added so far. */
+		private int shortcuts;
+
+		/* State of the witness search. */
+		private final float[] distances;
+		private final int[] reached;
+		private final int[] settled;
+		private final IntHeap toVisit;
+		private int search;
+
+		/**
+		 * Set up preprocessing for a graph with the specified number of vertices.
+		 */
+		private Contractor(int size) {
+			out = new EdgeList[size];
+			in = new EdgeList[size];
+			for(int v = 0; v < size; v++) {
+				out[v] = new EdgeList();
+				in[v] = new EdgeList();
+			}
+			contracted = new boolean[size];
+			contractedNeighbors = new int[size];
+			distances = new float[size];
+			reached = new int[size];
+			settled = new int[size];
+			toVisit = new IntHeap();
+			search = 0;
+		}
+
+		/**
+		 * Add an edge to the remaining graph, keeping only the lightest of
+		 * parallel edges.
+		 */
+		private void addEdge(int from, int to, float weight, int middle) {
+			out[from].put(to, weight, middle);
+			in[to].put(from, weight, middle);
+		}
+
+		/**
+		 * Contract every vertex, least important first.
+		 * @return The rank of each vertex.
+		 */
+		private int[] contractAll() {
+			int size = out.length;
+			int[] ranks = new int[size];
+			IntHeap queue = new IntHeap(size);
+			for(int v = 0; v < size; v++)
+				queue.add(v, priority(v));
+			int rank = 0;
+			while(!queue.isEmpty()) {
+				int v = queue.poll();
+				// Priorities go stale as neighbors are contracted, so recheck
+				// this one against the next best before contracting.
+				float priority = priority(v);
+				if(!queue.isEmpty() && priority > queue.peekKey()) {
+					queue.add(v, priority);
+					continue;
+				}
+				contract(v, true);
+				contracted[v] = true;
+				ranks[v] = rank++;
+			}
+			return ranks;
+		}
+
+		/**
+		 * Return the priority of a vertex: the number of shortcuts contracting
+		 * it would add less the number of edges it would remove, plus the number
+		 * of its neighbors already contracted (to spread contraction evenly).
+		 */
+		private float priority(int v) {
+			int removed = 0;
+			for(int i = 0; i < out[v].size; i++)
+				if(!contracted[out[v].ends[i]])
+					removed++;
+			for(int i = 0; i < in[v].size; i++)
+				if(!contracted[in[v].ends[i]])
+					removed++;
+			return contract(v, false) - removed + contractedNeighbors[v];
+		}
+
+		/**
+		 * Find the shortcuts needed to contract the vertex, adding them if requested.
+		 * @param v The vertex to be contracted.
+		 * @param add Whether to add the shortcuts to the remaining graph.
+		 * @return The number of shortcuts needed.
+		 */
+		private int contract(int v, boolean add) {
+			EdgeList incoming = in[v];
+			EdgeList outgoing = out[v];
+			int needed = 0;
+			for(int i = 0; i < incoming.size; i++) {
+				int from = incoming.ends[i];
+				if(contracted[from])
+					continue;
+				float maxOut = 0F;
+				for(int j = 0; j < outgoing.size; j++) {
+					int to = outgoing.ends[j];
+					if(!contracted[to] && to != from)
+						maxOut = Math.max(maxOut, outgoing.weights[j]);
+				}
+				float limit = incoming.weights[i] + maxOut;
+				findWitnesses(from, v, limit);
+				for(int j = 0; j < outgoing.size; j++) {
+					int to = outgoing.ends[j];
+					if(contracted[to] || to == from)
+						continue;
+					float through = incoming.weights[i] + outgoing.weights[j];
+					if(reached[to] == search && distances[to] <= through)
+						continue; // A witness route avoids v.
+					needed++;
+					if(add) {
+						addEdge(from, to, through, v);
+						shortcuts++;
+					}
+				}
+			}
+			if(add) {
+				for(int i = 0; i < outgoing.size; i++)
+					contractedNeighbors[outgoing.ends[i]]++;
+				for(int i = 0; i < incoming.size; i++)
+					contractedNeighbors[incoming.ends[i]]++;
+			}
+			return needed;
+		}
+
+		/**
+		 * Run a bounded Djikstra search from a vertex over the remaining graph,
+		 * avoiding the vertex being contracted.
+		 */
+		private void findWitnesses(int from, int avoid, float limit) {
+			search++;
+			toVisit.clear();
+			reached[from] = search;
+			distances[from] = 0F;
+			toVisit.add(from, 0F);
+			int count = 0;
+			while(!toVisit.isEmpty() && count < WITNESS_SETTLE_LIMIT) {
+				int v = toVisit.poll();
+				if(settled[v] == search)
+					continue;
+				settled[v] = search;
+				count++;
+				float distance = distances[v];
+				if(distance > limit)
+					break;
+				EdgeList edges = out[v];
+				for(int i = 0; i < edges.size; i++) {
+					int adj = edges.ends[i];
+					if(adj == avoid || contracted[adj] || settled[adj] == search)
+						continue;
+					float newDistance = distance + edges.weights[i];
+					if(reached[adj] != search || newDistance < distances[adj]) {
+						reached[adj] = search;
+						distances[adj] = newDistance;
+						toVisit.add(adj, newDistance);
+					}
+				}
+			}
+		}
+	}
+}
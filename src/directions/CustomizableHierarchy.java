@@ -0,0 +1,367 @@
+package directions;
+
+import java.util.Arrays;
+
+import data.CompactGraph;
+import data.IntHeap;
+import data.IntList;
+import data.IteratorGraph;
+
+/**
+ * A contraction hierarchy whose preprocessing does not depend on the edge
+ * weights, so that new weights (for closures or congestion) can be applied in
+ * a fraction of a second instead of rebuilding the hierarchy.
+ *
+ * Preprocessing ignores weights and edge directions. Vertices are eliminated
+ * one at a time, fewest remaining neighbors first, and the remaining neighbors
+ * of each eliminated vertex are joined to one another. The position of a
+ * vertex in this order is its rank. Every edge of the result joins a lower and
+ * a higher vertex and has a weight in each direction, and every edge between
+ * two neighbors of a lower vertex exists, so each such lower triangle is
+ * listed once here.
+ *
+ * Customization (see customize()) starts every edge at the weight of the
+ * original edges it joins, or infinity, then walks the lower triangles from the
+ * lowest vertex up, lowering each edge to the route through the bottom of its
+ * triangles. Afterwards a shortest route exists which climbs from its start and
+ * descends to its end, as in a ContractionHierarchy, and queries search the
+ * same way (see CustomizableHierarchyDjikstra).
+ *
+ * The hierarchy is immutable once built and can be shared between strategies.
+ * @author rohithrokkam
+ */
+public class CustomizableHierarchy {
+
+	/* The graph whose vertex and edge ids are used by the hierarchy. */
+	private final CompactGraph graph;
+
+	/* The rank of each vertex in the elimination order. */
+	private final int[] ranks;
+
+	/* For each vertex, the range of its upward edges in the array below. */
+	private final int[] upOffsets;
+
+	/* The lower and higher end of each upward edge, sorted by the id of the
+	   higher end for each lower end. */
+	private final int[] upSources;
+	private final int[] upTargets;
+
+	/* The lower triangles, with the lowest vertex first: the edges from the
+	   bottom to the middle and the top, and the edge from the middle to the top. */
+	private final int[] bottomToMiddle;
+	private final int[] bottomToTop;
+	private final int[] middleToTop;
+
+	/* The hierarchy edge of each graph edge, or -1 for a loop, and whether the
+	   graph edge runs up it (from its lower to its higher end). */
+	private final int[] inputEdges;
+	private final boolean[] inputUp;
+
+	/**
+	 * Build a customizable hierarchy over a graph.
+	 * @param graph The graph to be preprocessed.
+	 */
+	public CustomizableHierarchy(IteratorGraph<? extends Vertex> graph) {
+		this(new CompactGraph(graph));
+	}
+
+	/**
+	 * Build a customizable hierarchy over a compact graph. The hierarchy gives
+	 * its vertices the same ids as the graph.
+	 * @param graph The graph to be preprocessed.
+	 */
+	public CustomizableHierarchy(CompactGraph graph) {
+		this.graph = graph;
+		int size = graph.size();
+		Eliminator eliminator = new Eliminator(graph);
+		ranks = eliminator.eliminateAll();
+
+		upOffsets = new int[size + 1];
+		for(int v = 0; v < size; v++)
+			upOffsets[v + 1] = upOffsets[v] + eliminator.upward[v].length;
+		upSources = new int[upOffsets[size]];
+		upTargets = new int[upOffsets[size]];
+		for(int v = 0; v < size; v++) {
+			int[] upward = eliminator.upward[v];
+			Arrays.sort(upward);
+			System.arraycopy(upward, 0, upTargets, upOffsets[v], upward.length);
+			Arrays.fill(upSources, upOffsets[v], upOffsets[v + 1], v);
+		}
+
+		// List the lower triangles in rank order of their bottoms, which is the
+		// order customization must follow.
+		int[] order = new int[size];
+		for(int v = 0; v < size; v++)
+			order[ranks[v]] = v;
+		IntList toMiddle = new IntList();
+		IntList toTop = new IntList();
+		IntList across = new IntList();
+		for(int bottom : order) {
+			for(int i = upOffsets[bottom]; i < upOffsets[bottom + 1]; i++) {
+				for(int j = i + 1; j < upOffsets[bottom + 1]; j++) {
+					int middle = upTargets[i];
+					int top = upTargets[j];
+					if(ranks[middle] < ranks[top]) {
+						toMiddle.add(i);
+						toTop.add(j);
+					} else {
+						toMiddle.add(j);
+						toTop.add(i);
+						middle = upTargets[j];
+						top = upTargets[i];
+					}
+					across.add(edge(middle, top));
+				}
+			}
+		}
+		bottomToMiddle = toMiddle.toArray();
+		bottomToTop = toTop.toArray();
+		middleToTop = across.toArray();
+
+		inputEdges = new int[graph.edgeCount()];
+		inputUp = new boolean[graph.edgeCount()];
+		for(int v = 0; v < size; v++) {
+			for(int e = graph.begin(v), end = graph.end(v); e < end; e++) {
+				int adj = graph.target(e);
+				if(adj == v) {
+					inputEdges[e] = -1;
+				} else if(ranks[v] < ranks[adj]) {
+					inputEdges[e] = edge(v, adj);
+					inputUp[e] = true;
+				} else {
+					inputEdges[e] = edge(adj, v);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the dense id of a vertex, or -1 if it is not in the hierarchy.
+	 * @param v The vertex whose id is to be found.
+	 * @return The dense id of the vertex, or -1 if it is not in the hierarchy.
+	 */
+	public int id(Vertex v) {
+		return graph.id(v);
+	}
+
+	/**
+	 * Return the graph from which the hierarchy was built.
+	 * @return The graph from which the hierarchy was built.
+	 */
+	public CompactGraph graph() {
+		return graph;
+	}
+
+	/**
+	 * Return the number of vertices in the hierarchy.
+	 * @return The number of vertices in the hierarchy.
+	 */
+	public int size() {
+		return graph.size();
+	}
+
+	/**
+	 * Return the number of edges in the hierarchy, each with a weight in either
+	 * direction.
+	 * @return The number of edges in the hierarchy.
+	 */
+	public int edgeCount() {
+		return upTargets.length;
+	}
+
+	/**
+	 * Return the number of lower triangles walked by each customization.
+	 * @return The number of lower triangles in the hierarchy.
+	 */
+	public int triangles() {
+		return middleToTop.length;
+	}
+
+	/**
+	 * Return the weight of every edge of the graph as the graph gives it, for
+	 * customizing the hierarchy to the graph's own weights.
+	 * @return The weight of every edge of the graph, by edge index.
+	 */
+	public float[] graphWeights() {
+		float[] weights = new float[graph.edgeCount()];
+		for(int e = 0; e < weights.length; e++)
+			weights[e] = graph.weight(e);
+		return weights;
+	}
+
+	/**
+	 * Apply edge weights to the hierarchy. The hierarchy itself is unchanged,
+	 * so any number of customizations may be held and queried at once.
+	 * @param weights The weight of every edge of the graph, by its index in the
+	 * graph; Float.POSITIVE_INFINITY closes an edge.
+	 * @return The hierarchy customized to the weights.
+	 */
+	public Customization customize(float[] weights) {
+		if(weights.length != graph.edgeCount())
+			throw new IllegalArgumentException("expected " + graph.edgeCount()
+					+ " weights, not " + weights.length);
+		int edges = upTargets.length;
+		float[] up = new float[edges];
+		float[] down = new float[edges];
+		int[] upMiddles = new int[edges];
+		int[] downMiddles = new int[edges];
+		Arrays.fill(up, Float.POSITIVE_INFINITY);
+		Arrays.fill(down, Float.POSITIVE_INFINITY);
+		Arrays.fill(upMiddles, -1);
+		Arrays.fill(downMiddles, -1);
+		for(int e = 0; e < weights.length; e++) {
+			float weight = weights[e];
+			if(!(weight >= 0F))
+				throw new IllegalArgumentException("weight of edge " + e + " is " + weight);
+			int edge = inputEdges[e];
+			if(edge == -1)
+				continue;
+			if(inputUp[e])
+				up[edge] = Math.min(up[edge], weight);
+			else
+				down[edge] = Math.min(down[edge], weight);
+		}
+		for(int t = 0; t < middleToTop.length; t++) {
+			int lower = bottomToMiddle[t];
+			int upper = bottomToTop[t];
+			int edge = middleToTop[t];
+			int bottom = upSources[lower];
+			float upward = down[lower] + up[upper]; // Middle, down to bottom, up to top.
+			if(upward < up[edge]) {
+				up[edge] = upward;
+				upMiddles[edge] = bottom;
+			}
+			float downward = down[upper] + up[lower]; // Top, down to bottom, up to middle.
+			if(downward < down[edge]) {
+				down[edge] = downward;
+				downMiddles[edge] = bottom;
+			}
+		}
+		return new Customization(this, up, down, upMiddles, downMiddles);
+	}
+
+	/* Accessors for the upward edge arrays, used by queries. */
+	int upBegin(int v) { return upOffsets[v]; }
+	int upEnd(int v) { return upOffsets[v + 1]; }
+	int upSource(int e) { return upSources[e]; }
+	int upTarget(int e) { return upTargets[e]; }
+
+	/**
+	 * Return the index of the edge between a vertex and a vertex of higher rank.
+	 */
+	int edge(int lower, int higher) {
+		int e = Arrays.binarySearch(upTargets, upOffsets[lower], upOffsets[lower + 1], higher);
+		if(e < 0)
+			throw new IllegalStateException("no edge from " + lower + " up to " + higher);
+		return e;
+	}
+
+	/**
+	 * The working state of preprocessing: the remaining graph, with every
+	 * edge undirected, and the upward neighbors of each eliminated vertex.
+	 */
+	private static class Eliminator {
+
+		/* The neighbors of each vertex, possibly including eliminated ones. */
+		private final IntList[] neighbors;
+
+		/* Whether each vertex has been eliminated. */
+		private final boolean[] eliminated;
+
+		/* The neighbors each vertex had left when it was eliminated. */
+		private final int[][] upward;
+
+		/* The vertex whose neighbors are marked below, for each vertex. */
+		private final int[] marks;
+
+		/**
+		 * Set up preprocessing for the undirected, loop-free form of a graph.
+		 */
+		private Eliminator(CompactGraph graph) {
+			int size = graph.size();
+			neighbors = new IntList[size];
+			for(int v = 0; v < size; v++)
+				neighbors[v] = new IntList();
+			eliminated = new boolean[size];
+			upward = new int[size][];
+			marks = new int[size];
+			Arrays.fill(marks, -1);
+			for(int v = 0; v < size; v++) {
+				for(int e = graph.begin(v), end = graph.end(v); e < end; e++) {
+					int adj = graph.target(e);
+					if(adj != v) {
+						neighbors[v].add(adj);
+						neighbors[adj].add(v);
+					}
+				}
+			}
+			for(int v = 0; v < size; v++)
+				neighbors[v] = remaining(v);
+		}
+
+		/**
+		 * Eliminate every vertex, fewest remaining neighbors first.
+		 * @return The rank of each vertex.
+		 */
+		private int[] eliminateAll() {
+			int size = neighbors.length;
+			int[] ranks = new int[size];
+			IntHeap queue = new IntHeap(size);
+			for(int v = 0; v < size; v++)
+				queue.add(v, neighbors[v].size());
+			int rank = 0;
+			while(!queue.isEmpty()) {
+				float degree = queue.peekKey();
+				int v = queue.poll();
+				if(eliminated[v] || degree != neighbors[v].size())
+					continue; // Stale entry.
+				IntList remaining = neighbors[v];
+				upward[v] = remaining.toArray();
+				eliminated[v] = true;
+				ranks[v] = rank++;
+				for(int i = 0; i < remaining.size(); i++) {
+					int a = remaining.get(i);
+					IntList joined = remaining(a);
+					markNeighbors(a, joined);
+					for(int j = 0; j < remaining.size(); j++) {
+						int b = remaining.get(j);
+						if(b != a && marks[b] != a) {
+							joined.add(b);
+							marks[b] = a;
+						}
+					}
+					neighbors[a] = joined;
+					queue.add(a, joined.size());
+				}
+				neighbors[v] = null;
+			}
+			return ranks;
+		}
+
+		/**
+		 * Return the distinct neighbors of a vertex which have not been eliminated.
+		 */
+		private IntList remaining(int v) {
+			IntList list = neighbors[v];
+			IntList result = new IntList();
+			for(int i = 0; i < list.size(); i++) {
+				int u = list.get(i);
+				if(!eliminated[u] && marks[u] != -2 - v) {
+					marks[u] = -2 - v; // Marks below -1 dedupe; other marks name a vertex.
+					result.add(u);
+				}
+			}
+			for(int i = 0; i < result.size(); i++)
+				marks[result.get(i)] = -1;
+			return result;
+		}
+
+		/**
+		 * Mark every vertex in a list as a neighbor of a vertex.
+		 */
+		private void markNeighbors(int v, IntList list) {
+			for(int i = 0; i < list.size(); i++)
+				marks[list.get(i)] = v;
+		}
+	}
+}
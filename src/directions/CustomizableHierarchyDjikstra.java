@@ -0,0 +1,211 @@
+package directions;
+
+import data.IntList;
+import data.Pool;
+
+/**
+ * A query strategy for a customizable hierarchy, whose edge weights can be
+ * replaced while it is in use. A forward search from the start vertex climbs
+ * the hierarchy over the upward weights, and a backward search from the end
+ * vertex climbs it over the downward weights, as in HierarchyDjikstra. Routes
+ * are unpacked into the original vertices before the directions are returned.
+ *
+ * New weights are customized on the calling thread and then swapped in whole;
+ * each query runs on the customization current when it began. Queries take
+ * their state from a pool, so they may run concurrently.
+ * @author rohithrokkam
+ */
+public class CustomizableHierarchyDjikstra implements DirectionStrategy {
+
+	/* The hierarchy searched by this strategy. */
+	private final CustomizableHierarchy hierarchy;
+
+	/* The weights queries run on. */
+	private volatile Customization customization;
+
+	/* Query states which are not in use. */
+	private final Pool<Query> queries;
+
+	/**
+	 * Sets up for queries over a customizable hierarchy, with the graph's own
+	 * edge weights.
+	 * @param hierarchy The hierarchy to be searched.
+	 */
+	public CustomizableHierarchyDjikstra(CustomizableHierarchy hierarchy) {
+		this(hierarchy.customize(hierarchy.graphWeights()));
+	}
+
+	/**
+	 * Sets up for queries over a customized hierarchy.
+	 * @param customization The weights applied to the hierarchy to be searched.
+	 */
+	public CustomizableHierarchyDjikstra(Customization customization) {
+		this.hierarchy = customization.hierarchy();
+		this.customization = customization;
+		queries = new Pool<Query>(() -> new Query(hierarchy.size()));
+	}
+
+	/**
+	 * Apply new edge weights to the hierarchy, for every query which begins
+	 * after this method returns.
+	 * @param weights The weight of every edge of the graph, by its index in the
+	 * graph; Float.POSITIVE_INFINITY closes an edge.
+	 */
+	public void setWeights(float[] weights) {
+		setCustomization(hierarchy.customize(weights));
+	}
+
+	/**
+	 * Replace the weights queries run on with a customization of the same hierarchy.
+	 * @param customization The weights applied to the hierarchy.
+	 */
+	public void setCustomization(Customization customization) {
+		if(customization.hierarchy() != hierarchy)
+			throw new IllegalArgumentException("customization of another hierarchy");
+		this.customization = customization;
+	}
+
+	/**
+	 * Return the weights queries run on.
+	 * @return The weights queries run on.
+	 */
+	public Customization customization() {
+		return customization;
+	}
+
+	/**
+	 * Returns the directions which comprise the shortest path from the start vertex
+	 * to the end vertex, or NO_DIRECTIONS if there is no such path.
+	 * @return The directions which comprise the shortest path from the start vertex
+	 * to the end vertex.
+	 */
+	@Override
+	public Directions getDirections(Vertex start, Vertex end) {
+		if(start == null || end == null)
+			return Directions.NO_DIRECTIONS;
+		int source = hierarchy.id(start);
+		int target = hierarchy.id(end);
+		if(source == -1 || target == -1)
+			return Directions.NO_DIRECTIONS;
+		Query query = queries.take();
+		try {
+			return query.run(customization, source, target);
+		} finally {
+			queries.give(query);
+		}
+	}
+
+	/**
+	 * The state of one hierarchy query.
+	 */
+	private class Query {
+
+		/* The search from the start vertex, over upward weights. */
+		private final SearchContext forward;
+
+		/* The search from the end vertex, over downward weights. */
+		private final SearchContext backward;
+
+		/* The weights of the current query. */
+		private Customization weights;
+
+		/* The length of the shortest route found so far. */
+		private float bestDistance;
+
+		/* The vertex of highest rank on the shortest route found so far, or -1. */
+		private int meeting;
+
+		/**
+		 * Construct the state for queries over a hierarchy of the specified size.
+		 */
+		private Query(int size) {
+			forward = new SearchContext(size);
+			backward = new SearchContext(size);
+		}
+
+		/**
+		 * Find the directions from one vertex to another over a customization.
+		 */
+		private Directions run(Customization weights, int source, int target) {
+			this.weights = weights;
+			bestDistance = Float.POSITIVE_INFINITY;
+			meeting = -1;
+			forward.begin(source, 0F);
+			backward.begin(target, 0F);
+			while(true) {
+				float forwardKey = forward.toVisit.peekKey();
+				float backwardKey = backward.toVisit.peekKey();
+				// Each search can stop once its frontier is no closer than the
+				// best route, since it only climbs away from its origin.
+				if(Math.min(forwardKey, backwardKey) >= bestDistance)
+					break;
+				if(forward.isInterrupted()) {
+					this.weights = null;
+					return Directions.NO_DIRECTIONS; // The route is no longer wanted.
+				}
+				if(forwardKey <= backwardKey)
+					step(forward, backward, true);
+				else
+					step(backward, forward, false);
+			}
+			Directions directions = (meeting == -1)
+					? Directions.NO_DIRECTIONS : getRouteThrough(meeting);
+			this.weights = null;
+			return directions;
+		}
+
+		/**
+		 * Settle the next vertex of one search and relax its upward edges.
+		 * @param side The search to be advanced.
+		 * @param other The search in the opposite direction.
+		 * @param forwards Whether the advanced search is the forward one, which
+		 * follows upward weights, or the backward one, which follows downward weights.
+		 */
+		private void step(SearchContext side, SearchContext other, boolean forwards) {
+			int v = side.toVisit.poll();
+			if(!side.settle(v)) // Stale entry.
+				return;
+			float distance = side.distances[v];
+			if(other.isReached(v) && distance + other.distances[v] < bestDistance) {
+				bestDistance = distance + other.distances[v];
+				meeting = v;
+			}
+			for(int e = hierarchy.upBegin(v), end = hierarchy.upEnd(v); e < end; e++) {
+				float weight = forwards ? weights.upWeight(e) : weights.downWeight(e);
+				if(weight == Float.POSITIVE_INFINITY)
+					continue; // No route along this edge under these weights.
+				int adj = hierarchy.upTarget(e);
+				float newDistance = distance + weight;
+				if(!side.isReached(adj) || newDistance < side.distances[adj]) {
+					side.reach(adj, newDistance, v, e);
+					side.toVisit.add(adj, newDistance);
+					if(other.isReached(adj)
+							&& newDistance + other.distances[adj] < bestDistance) {
+						bestDistance = newDistance + other.distances[adj];
+						meeting = adj;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Returns the directions from the start vertex to the end vertex through
+		 * the specified vertex, with every edge unpacked.
+		 * @param v The id of the vertex at which the searches meet.
+		 * @return The directions from the start vertex to the end vertex.
+		 */
+		private Directions getRouteThrough(int v) {
+			IntList climbed = new IntList(); // Edges climbed forward, from the top.
+			int u = v;
+			for(; forward.predecessors[u] != -1; u = forward.predecessors[u])
+				climbed.add(forward.edges[u]);
+			IntList route = new IntList();
+			route.add(u);
+			for(int i = climbed.size() - 1; i >= 0; i--)
+				weights.unpack(climbed.get(i), true, route);
+			for(u = v; backward.predecessors[u] != -1; u = backward.predecessors[u])
+				weights.unpack(backward.edges[u], false, route);
+			return new Directions(hierarchy.graph(), route.toArray(), null);
+		}
+	}
+}
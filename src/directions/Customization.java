@@ -0,0 +1,72 @@
+package directions;
+
+import data.IntList;
+
+/**
+ * A customizable hierarchy with a set of edge weights applied: the weight of
+ * every hierarchy edge in each direction, and for each weight the vertex of
+ * the lower triangle it came through, if any, so routes can be unpacked back
+ * into original vertices. Customizations are immutable, so a new one can be
+ * swapped in while queries are still running on the old one.
+ * @author rohithrokkam
+ */
+public class Customization {
+
+	/* The hierarchy to which the weights were applied. */
+	private final CustomizableHierarchy hierarchy;
+
+	/* The weight of each edge from its lower to its higher end, and back. */
+	private final float[] up;
+	private final float[] down;
+
+	/* The bottom of the lower triangle each weight came through, or -1 if
+	   the weight is that of an original edge. */
+	private final int[] upMiddles;
+	private final int[] downMiddles;
+
+	/**
+	 * Construct a customization of a hierarchy.
+	 */
+	Customization(CustomizableHierarchy hierarchy, float[] up, float[] down,
+			int[] upMiddles, int[] downMiddles) {
+		this.hierarchy = hierarchy;
+		this.up = up;
+		this.down = down;
+		this.upMiddles = upMiddles;
+		this.downMiddles = downMiddles;
+	}
+
+	/**
+	 * Return the hierarchy to which the weights were applied.
+	 * @return The hierarchy to which the weights were applied.
+	 */
+	public CustomizableHierarchy hierarchy() {
+		return hierarchy;
+	}
+
+	/* Accessors for the weights, used by queries. */
+	float upWeight(int e) { return up[e]; }
+	float downWeight(int e) { return down[e]; }
+
+	/**
+	 * Append the original vertices along an edge, excluding the vertex the
+	 * route leaves from, to the route.
+	 * @param e The index of the hierarchy edge.
+	 * @param upward Whether the route climbs the edge, or descends it.
+	 * @param route The route to which vertex ids are appended.
+	 */
+	void unpack(int e, boolean upward, IntList route) {
+		int lower = hierarchy.upSource(e);
+		int higher = hierarchy.upTarget(e);
+		int middle = upward ? upMiddles[e] : downMiddles[e];
+		if(middle == -1) {
+			route.add(upward ? higher : lower);
+			return;
+		}
+		// The route runs down to the bottom of the triangle and up again.
+		int from = upward ? lower : higher;
+		int to = upward ? higher : lower;
+		unpack(hierarchy.edge(middle, from), false, route);
+		unpack(hierarchy.edge(middle, to), true, route);
+	}
+}
@@ -0,0 +1,316 @@
+package directions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import data.CompactGraph;
+import data.IntList;
+import data.IteratorGraph;
+
+/**
+ * A parallel single-source shortest-route engine using delta-stepping, for
+ * one-to-all questions such as isochrones and reverse trees on graphs large
+ * enough that a sequential search is bound by a single core.
+ *
+ * Tentative distances are grouped into buckets of a fixed width, delta, and the
+ * buckets are emptied in order. Edges no longer than delta are light and may
+ * put a vertex back into the bucket being emptied, so the vertices of a bucket
+ * are relaxed over light edges in rounds until the bucket stays empty; heavy
+ * edges are then relaxed once for every vertex the bucket settled. Within each
+ * round the vertices are split among the workers of a fork/join pool. A small
+ * delta does little wasted work but many rounds; a large delta does few rounds
+ * with more relaxations repeated.
+ *
+ * The distance and predecessor of each vertex are packed into one long, with
+ * the distance in the high half, and lowered together by compare-and-set.
+ * Distances are never negative, so their bits order as the distances do.
+ * Every search has state of its own, so searches may run concurrently.
+ * @author rohithrokkam
+ */
+public class DeltaStepping {
+
+	/* The largest number of vertices one task relaxes without splitting; fewer
+	   vertices than this are relaxed on the calling thread. */
+	private static final int SPLIT_THRESHOLD = 256;
+
+	/* The packed entry of a vertex not yet reached. */
+	private static final long UNREACHED = pack(Float.POSITIVE_INFINITY, -1);
+
+	/* The graph for computing distances. */
+	private final CompactGraph graph;
+
+	/* The width of each bucket of tentative distances. */
+	private final float delta;
+
+	/* The pool whose workers relax the edges. */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Sets up for delta-stepping over a graph, using a bucket width suited to
+	 * its edges and the common fork/join pool.
+	 * @param graph The graph for computing distances.
+	 */
+	public DeltaStepping(IteratorGraph<? extends Vertex> graph) {
+		this(new CompactGraph(graph));
+	}
+
+	/**
+	 * Sets up for delta-stepping over a compact graph, using a bucket width
+	 * suited to its edges and the common fork/join pool.
+	 * @param graph The graph for computing distances.
+	 */
+	public DeltaStepping(CompactGraph graph) {
+		this(graph, defaultDelta(graph), ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Sets up for delta-stepping over a compact graph.
+	 * @param graph The graph for computing distances.
+	 * @param delta The width of each bucket of tentative distances.
+	 * @param pool The pool whose workers relax the edges. The caller owns the
+	 * pool and shuts it down, if need be, once searches are done.
+	 */
+	public DeltaStepping(CompactGraph graph, float delta, ForkJoinPool pool) {
+		if(!(delta > 0F) || delta == Float.POSITIVE_INFINITY)
+			throw new IllegalArgumentException("delta must be positive and finite: " + delta);
+		if(pool == null)
+			throw new NullPointerException("pool");
+		this.graph = graph;
+		this.delta = delta;
+		this.pool = pool;
+	}
+
+	/**
+	 * Return a bucket width suited to a graph: many times its mean edge length,
+	 * so that a bucket holds enough vertices to be worth splitting among workers.
+	 * Narrow buckets spend more time between rounds than relaxing edges.
+	 * @param graph The graph whose edges are to be measured.
+	 * @return A bucket width for the graph.
+	 */
+	public static float defaultDelta(CompactGraph graph) {
+		double total = 0;
+		for(int e = 0; e < graph.edgeCount(); e++)
+			total += graph.weight(e);
+		float mean = (graph.edgeCount() == 0) ? 0F : (float) (total / graph.edgeCount());
+		return (mean > 0F) ? 32 * mean : 1F;
+	}
+
+	/**
+	 * Return the width of each bucket of tentative distances.
+	 * @return The width of each bucket of tentative distances.
+	 */
+	public float delta() {
+		return delta;
+	}
+
+	/**
+	 * Return the shortest routes from a vertex to every vertex.
+	 * @param origin The vertex at which routes begin.
+	 * @return The shortest-route tree from the origin, or null if the origin is
+	 * not in the graph.
+	 */
+	public ShortestPathTree from(Vertex origin) {
+		return search(graph, origin, false);
+	}
+
+	/**
+	 * Return the shortest routes from every vertex to a vertex.
+	 * @param destination The vertex at which routes end.
+	 * @return The shortest-route tree to the destination, or null if the
+	 * destination is not in the graph.
+	 */
+	public ShortestPathTree toward(Vertex destination) {
+		return search(graph.reverse(), destination, true);
+	}
+
+	/**
+	 * Run delta-stepping from a vertex over a graph, or its reverse.
+	 */
+	private ShortestPathTree search(CompactGraph g, Vertex root, boolean reversed) {
+		int source = (root == null) ? -1 : graph.id(root);
+		if(source == -1)
+			return null;
+		int size = g.size();
+		AtomicLongArray entries = new AtomicLongArray(size);
+		for(int v = 0; v < size; v++)
+			entries.set(v, UNREACHED);
+		entries.set(source, pack(0F, -1));
+		int[] rounds = new int[size]; // The round in which each vertex was last relaxed.
+		int[] settledIn = new int[size]; // One more than the bucket which settled each vertex.
+		List<IntList> buckets = new ArrayList<IntList>();
+		place(buckets, source, 0F);
+		int round = 0;
+		IntList settled = new IntList();
+		for(int b = 0; b < buckets.size(); b++) {
+			settled.clear();
+			while(buckets.get(b) != null && buckets.get(b).size() > 0) {
+				IntList bucket = buckets.get(b);
+				buckets.set(b, null);
+				round++;
+				IntList frontier = new IntList(); // Vertices still in this bucket, once each.
+				for(int i = 0; i < bucket.size(); i++) {
+					int v = bucket.get(i);
+					if(rounds[v] != round && bucketOf(distance(entries.get(v))) == b) {
+						rounds[v] = round;
+						frontier.add(v);
+						if(settledIn[v] != b + 1) {
+							settledIn[v] = b + 1;
+							settled.add(v);
+						}
+					}
+				}
+				distribute(buckets, entries, relax(g, entries, frontier.toArray(), true));
+			}
+			buckets.set(b, null);
+			distribute(buckets, entries, relax(g, entries, settled.toArray(), false));
+		}
+
+		float[] distances = new float[size];
+		int[] parents = new int[size];
+		for(int v = 0; v < size; v++) {
+			long entry = entries.get(v);
+			distances[v] = distance(entry);
+			parents[v] = predecessor(entry);
+		}
+		return new ShortestPathTree(graph, source, reversed, distances, parents);
+	}
+
+	/**
+	 * Relax the light or heavy edges of some vertices, on the pool unless there
+	 * are too few vertices to split, and return the vertices whose distances
+	 * were lowered.
+	 */
+	private IntList relax(CompactGraph g, AtomicLongArray entries, int[] vertices, boolean light) {
+		Relax task = new Relax(g, entries, vertices, 0, vertices.length, light);
+		return (vertices.length <= SPLIT_THRESHOLD) ? task.compute() : pool.invoke(task);
+	}
+
+	/**
+	 * Place every vertex whose distance was lowered into the bucket for its
+	 * distance. A vertex may be placed in a bucket more than once, and stay in
+	 * buckets it has since left; such entries are skipped when the bucket is emptied.
+	 */
+	private void distribute(List<IntList> buckets, AtomicLongArray entries, IntList lowered) {
+		for(int i = 0; i < lowered.size(); i++) {
+			int v = lowered.get(i);
+			place(buckets, v, distance(entries.get(v)));
+		}
+	}
+
+	/**
+	 * Add a vertex to the bucket for a distance.
+	 */
+	private void place(List<IntList> buckets, int v, float distance) {
+		int b = bucketOf(distance);
+		while(buckets.size() <= b)
+			buckets.add(null);
+		if(buckets.get(b) == null)
+			buckets.set(b, new IntList());
+		buckets.get(b).add(v);
+	}
+
+	/**
+	 * Return the index of the bucket for a distance.
+	 */
+	private int bucketOf(float distance) {
+		return (int) (distance / delta);
+	}
+
+	/**
+	 * Pack a distance and predecessor into one long, distance first.
+	 */
+	private static long pack(float distance, int predecessor) {
+		return ((long) Float.floatToRawIntBits(distance) << 32) | (predecessor & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Return the distance of a packed entry.
+	 */
+	private static float distance(long entry) {
+		return Float.intBitsToFloat((int) (entry >>> 32));
+	}
+
+	/**
+	 * Return the predecessor of a packed entry.
+	 */
+	private static int predecessor(long entry) {
+		return (int) entry;
+	}
+
+	/**
+	 * A task which relaxes the light or heavy edges of a range of vertices,
+	 * splitting the range in half until it is small, and returns the vertices
+	 * whose distances it lowered.
+	 */
+	@SuppressWarnings("serial")
+	private class Relax extends RecursiveTask<IntList> {
+
+		/* The graph whose edges are relaxed. */
+		private final CompactGraph g;
+
+		/* The packed distance and predecessor of each vertex. */
+		private final AtomicLongArray entries;
+
+		/* The vertices whose edges are relaxed. */
+		private final int[] vertices;
+
+		/* The range of vertices relaxed by this task. */
+		private final int begin;
+		private final int end;
+
+		/* Whether the light edges are relaxed, rather than the heavy ones. */
+		private final boolean light;
+
+		/**
+		 * Construct a task which relaxes the edges of the vertices from begin
+		 * (inclusive) to end (exclusive).
+		 */
+		private Relax(CompactGraph g, AtomicLongArray entries, int[] vertices,
+				int begin, int end, boolean light) {
+			this.g = g;
+			this.entries = entries;
+			this.vertices = vertices;
+			this.begin = begin;
+			this.end = end;
+			this.light = light;
+		}
+
+		@Override
+		protected IntList compute() {
+			if(end - begin > SPLIT_THRESHOLD) {
+				int middle = (begin + end) >>> 1;
+				Relax first = new Relax(g, entries, vertices, begin, middle, light);
+				first.fork();
+				IntList lowered = new Relax(g, entries, vertices, middle, end, light).compute();
+				IntList firstLowered = first.join();
+				for(int i = 0; i < lowered.size(); i++)
+					firstLowered.add(lowered.get(i));
+				return firstLowered;
+			}
+			IntList lowered = new IntList();
+			for(int i = begin; i < end; i++) {
+				int v = vertices[i];
+				float distance = distance(entries.get(v));
+				for(int e = g.begin(v), last = g.end(v); e < last; e++) {
+					float weight = g.weight(e);
+					if((weight <= delta) != light)
+						continue;
+					int adj = g.target(e);
+					long entry = pack(distance + weight, v);
+					long current = entries.get(adj);
+					while((entry >>> 32) < (current >>> 32)) { // Only a shorter distance replaces.
+						if(entries.compareAndSet(adj, current, entry)) {
+							lowered.add(adj);
+							break;
+						}
+						current = entries.get(adj);
+					}
+				}
+			}
+			return lowered;
+		}
+	}
+}
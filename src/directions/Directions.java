@@ -1,48 +1,195 @@
 package directions;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
+import data.CompactGraph;
+
 /**
  * A class which represents the directions found by a directionsGenerator.
+ * Directions found on a CompactGraph keep the ids of their vertices in an int
+ * array and resolve them through the graph only when asked. Every set of
+ * directions also keeps the distance along the route to each of its vertices,
+ * computed once when the directions are made, so lengths, remaining distances
+ * and progress along the route never need the metric again.
  * @author rohithrokkam
  */
 public class Directions implements Iterable<Vertex> {
 
-	/* The list of nodes which constitute these directions. */
-	private final List<Vertex> vertices;
-	
+	/* The graph whose ids are held in ids, or null if vertices is used. */
+	private final CompactGraph graph;
+
+	/* The ids of the vertices which constitute these directions, or null. */
+	private final int[] ids;
+
+	/* The vertices which constitute these directions, or null if ids is used. */
+	private final Vertex[] vertices;
+
+	/* The distance along the route from its first vertex to each vertex. */
+	private final float[] distances;
+
 	/* A value representing that no directions were found. */
 	public static final Directions NO_DIRECTIONS =
-			new Directions(new ArrayList<Vertex>());
+			new Directions(new Vertex[0], new float[0]);
+
 	/**
-	 * Construct a new set of directions from a list of nodes.
+	 * Construct a new set of directions from a list of nodes. The distances
+	 * between consecutive nodes are computed once, with their distance() method.
 	 * @param list The member elements of the set of directions.
 	 */
 	public Directions(List<Vertex> list) {
-		vertices = Collections.unmodifiableList(list);
+		this(list.toArray(new Vertex[list.size()]), null);
+	}
+
+	/**
+	 * Construct a new set of directions from an array of vertices and the
+	 * distance along the route to each of them.
+	 * @param vertices The vertices which constitute the directions.
+	 * @param distances The distance from the first vertex to each vertex, or
+	 * null to compute the distances with the distance() method of the vertices.
+	 */
+	public Directions(Vertex[] vertices, float[] distances) {
+		this.graph = null;
+		this.ids = null;
+		this.vertices = vertices;
+		if(distances == null) {
+			distances = new float[vertices.length];
+			for(int i = 1; i < vertices.length; i++)
+				distances[i] = distances[i - 1] + vertices[i - 1].distance(vertices[i]);
+		}
+		this.distances = distances;
+	}
+
+	/**
+	 * Construct a new set of directions from the ids of vertices in a compact
+	 * graph and the distance along the route to each of them.
+	 * @param graph The graph which gives the vertices their ids.
+	 * @param ids The ids of the vertices which constitute the directions.
+	 * @param distances The distance from the first vertex to each vertex, or
+	 * null to take the distances from the shortest edges between consecutive
+	 * vertices of the graph.
+	 */
+	public Directions(CompactGraph graph, int[] ids, float[] distances) {
+		this.graph = graph;
+		this.ids = ids;
+		this.vertices = null;
+		if(distances == null) {
+			distances = new float[ids.length];
+			for(int i = 1; i < ids.length; i++)
+				distances[i] = distances[i - 1] + edgeWeight(graph, ids[i - 1], ids[i]);
+		}
+		this.distances = distances;
+	}
+
+	/**
+	 * Return the weight of the shortest edge from one vertex to another, or
+	 * Float.POSITIVE_INFINITY if there is no such edge.
+	 */
+	private static float edgeWeight(CompactGraph graph, int from, int to) {
+		float weight = Float.POSITIVE_INFINITY;
+		for(int e = graph.begin(from), end = graph.end(from); e < end; e++)
+			if(graph.target(e) == to)
+				weight = Math.min(weight, graph.weight(e));
+		return weight;
+	}
+
+	/**
+	 * Return the number of vertices in these directions.
+	 * @return The number of vertices in these directions.
+	 */
+	public int size() {
+		return distances.length;
+	}
+
+	/**
+	 * Return the vertex at the specified position along these directions.
+	 * @param index The position of the vertex, from 0.
+	 * @return The vertex at the specified position.
+	 */
+	public Vertex vertex(int index) {
+		return (ids != null) ? graph.vertex(ids[index]) : vertices[index];
+	}
+
+	/**
+	 * Return the total length of these directions, or 0 if they are empty.
+	 * @return The total length of these directions.
+	 */
+	public float length() {
+		return (distances.length == 0) ? 0F : distances[distances.length - 1];
+	}
+
+	/**
+	 * Return the distance along these directions from the first vertex to the
+	 * vertex at the specified position.
+	 * @param index The position of the vertex, from 0.
+	 * @return The distance travelled on reaching the vertex.
+	 */
+	public float distanceTo(int index) {
+		return distances[index];
+	}
+
+	/**
+	 * Return the distance along these directions from the vertex at the
+	 * specified position to the last vertex.
+	 * @param index The position of the vertex, from 0.
+	 * @return The distance left to travel from the vertex.
+	 */
+	public float remainingDistance(int index) {
+		return length() - distances[index];
+	}
+
+	/**
+	 * Return the position of the last vertex reached after travelling the
+	 * specified distance along these directions, found by binary search.
+	 * @param distance The distance travelled from the first vertex.
+	 * @return The position of the last vertex reached, or -1 if these
+	 * directions are empty.
+	 */
+	public int indexAt(float distance) {
+		if(distances.length == 0)
+			return -1;
+		int index = Arrays.binarySearch(distances, distance);
+		if(index < 0) // The last vertex before the insertion point.
+			return Math.max(-index - 2, 0);
+		while(index + 1 < distances.length && distances[index + 1] == distance)
+			index++;
+		return index;
 	}
 
 	/**
 	 * Return an iterator over the vertices in this set of directions.
-	 * @return An iterator over the vertices in this set of directions. 
+	 * @return An iterator over the vertices in this set of directions.
 	 */
 	@Override
 	public Iterator<Vertex> iterator() {
-		return vertices.iterator();
+		return asList().iterator();
 	}
-	
+
 	/**
-	 * Return an unmodifiable list version of the directions 
-	 * represented by this object.
-	 * @return An unmodifiable list version of the directions 
+	 * Return an unmodifiable list version of the directions
+	 * represented by this object. The list is a view, and does not copy
+	 * the vertices.
+	 * @return An unmodifiable list version of the directions
 	 * represented by this object.
 	 */
 	public List<Vertex> asList() {
-		return Collections.unmodifiableList(vertices);
+		return new AbstractList<Vertex>() {
+			@Override
+			public Vertex get(int index) {
+				if(index < 0 || index >= distances.length)
+					throw new IndexOutOfBoundsException();
+				return vertex(index);
+			}
+
+			@Override
+			public int size() {
+				return distances.length;
+			}
+		};
 	}
+
 	/**
 	 * Return a String representation of these directions.
 	 * @return A String representation of these directions.
@@ -50,18 +197,16 @@ public class Directions implements Iterable<Vertex> {
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
+		if(distances.length == 0)
+			return sb.toString();
 		// add in the directions strings
-		Vertex prevVertex = vertices.get(0);
-		Vertex nextVertex;
-		sb.append(prevVertex.toString());
-		for(int i = 1; i < vertices.size(); i++) {
-			nextVertex = vertices.get(i);
-			sb.append(nextVertex.toString());
+		sb.append(vertex(0).toString());
+		for(int i = 1; i < distances.length; i++) {
+			sb.append(vertex(i).toString());
 			sb.append("; Distance = ");
-			sb.append(prevVertex.distance(nextVertex));
+			sb.append(distances[i] - distances[i - 1]);
 			sb.append("\n");
-			prevVertex = nextVertex;
 		}
 		return sb.toString();
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+package directions;
+
+import java.util.List;
+
+import data.CompactGraph;
+import data.IteratorGraph;
+import data.Pool;
+
+/**
+ * Distance tables between a list of sources and a list of targets, as needed
+ * to match N vehicles to M destinations. Instead of N * M separate queries,
+ * one Djikstra search runs from each source and stops as soon as every target
+ * has been settled, so a single search fills a whole row of the table.
+ * Searches take their state from a pool, so tables may be computed from
+ * several threads at once.
+ * @author rohithrokkam
+ */
+public class DistanceMatrix {
+
+	/* The graph for computing distances. */
+	private final CompactGraph graph;
+
+	/* Search contexts which are not in use. */
+	private final Pool<SearchContext> contexts;
+
+	/**
+	 * Sets up for computing distance tables over a graph.
+	 * @param graph The graph for computing distances.
+	 */
+	public DistanceMatrix(IteratorGraph<? extends Vertex> graph) {
+		this(new CompactGraph(graph));
+	}
+
+	/**
+	 * Sets up for computing distance tables over a compact graph.
+	 * @param graph The graph for computing distances.
+	 */
+	public DistanceMatrix(CompactGraph graph) {
+		this.graph = graph;
+		contexts = new Pool<SearchContext>(() -> new SearchContext(graph.size()));
+	}
+
+	/**
+	 * Return the length of the shortest route from every source to every target.
+	 * The entry [i][j] is the distance from source i to target j, or
+	 * Float.POSITIVE_INFINITY if there is no route or either vertex is not in
+	 * the graph.
+	 * @param sources The vertices at which routes begin.
+	 * @param targets The vertices at which routes end.
+	 * @return The distance from every source to every target.
+	 */
+	public float[][] distances(List<? extends Vertex> sources, List<? extends Vertex> targets) {
+		float[][] table = new float[sources.size()][targets.size()];
+		int[] targetIds = ids(targets);
+		boolean[] isTarget = new boolean[graph.size()];
+		int distinctTargets = mark(targetIds, isTarget);
+		SearchContext context = contexts.take();
+		try {
+			for(int i = 0; i < sources.size(); i++) {
+				int source = (sources.get(i) == null) ? -1 : graph.id(sources.get(i));
+				search(context, source, isTarget, distinctTargets);
+				for(int j = 0; j < targetIds.length; j++) {
+					int t = targetIds[j];
+					table[i][j] = (source != -1 && t != -1 && context.isSettled(t))
+							? context.distances[t] : Float.POSITIVE_INFINITY;
+				}
+			}
+		} finally {
+			contexts.give(context);
+		}
+		return table;
+	}
+
+	/**
+	 * Return the shortest route from every source to every target. The entry
+	 * [i][j] holds the directions from source i to target j, or NO_DIRECTIONS
+	 * if there is no route or either vertex is not in the graph.
+	 * @param sources The vertices at which routes begin.
+	 * @param targets The vertices at which routes end.
+	 * @return The directions from every source to every target.
+	 */
+	public Directions[][] directions(List<? extends Vertex> sources, List<? extends Vertex> targets) {
+		Directions[][] table = new Directions[sources.size()][targets.size()];
+		int[] targetIds = ids(targets);
+		boolean[] isTarget = new boolean[graph.size()];
+		int distinctTargets = mark(targetIds, isTarget);
+		SearchContext context = contexts.take();
+		try {
+			for(int i = 0; i < sources.size(); i++) {
+				int source = (sources.get(i) == null) ? -1 : graph.id(sources.get(i));
+				search(context, source, isTarget, distinctTargets);
+				for(int j = 0; j < targetIds.length; j++) {
+					int t = targetIds[j];
+					table[i][j] = (source != -1 && t != -1 && context.isSettled(t))
+							? context.routeTo(graph, t) : Directions.NO_DIRECTIONS;
+				}
+			}
+		} finally {
+			contexts.give(context);
+		}
+		return table;
+	}
+
+	/**
+	 * Return the dense id of every vertex in a list, or -1 for vertices which
+	 * are not in the graph.
+	 */
+	private int[] ids(List<? extends Vertex> vertices) {
+		int[] ids = new int[vertices.size()];
+		for(int i = 0; i < ids.length; i++)
+			ids[i] = (vertices.get(i) == null) ? -1 : graph.id(vertices.get(i));
+		return ids;
+	}
+
+	/**
+	 * Mark the vertices with the specified ids, and return the number of
+	 * distinct vertices marked.
+	 */
+	private static int mark(int[] ids, boolean[] marks) {
+		int distinct = 0;
+		for(int id : ids) {
+			if(id != -1 && !marks[id]) {
+				marks[id] = true;
+				distinct++;
+			}
+		}
+		return distinct;
+	}
+
+	/**
+	 * Run a Djikstra search from a source until every target is settled or
+	 * no vertex is left to visit. Does nothing if the source is -1.
+	 * @param context The state of the search.
+	 * @param source The id of the vertex at which the search begins, or -1.
+	 * @param isTarget Whether each vertex is a target.
+	 * @param remaining The number of distinct targets.
+	 */
+	private void search(SearchContext context, int source, boolean[] isTarget, int remaining) {
+		if(source == -1)
+			return;
+		context.begin(source, 0F);
+		while(remaining > 0 && !context.toVisit.isEmpty()) {
+			int v = context.toVisit.poll();
+			if(!context.settle(v)) // Stale entry.
+				continue;
+			if(isTarget[v])
+				remaining--;
+			float distance = context.distances[v];
+			for(int e = graph.begin(v), end = graph.end(v); e < end; e++) {
+				int adj = graph.target(e);
+				if(context.isSettled(adj))
+					continue;
+				float newDistance = distance + graph.weight(e);
+				if(!context.isReached(adj) || newDistance < context.distances[adj]) {
+					context.reach(adj, newDistance, v, e);
+					context.toVisit.add(adj, newDistance);
+				}
+			}
+		}
+	}
+}
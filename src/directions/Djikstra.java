@@ -1,42 +1,27 @@
 package directions;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
 import data.IteratorGraph;
 
 /**
- * An implementation of Djikstra's algorithm.
+ * An implementation of Djikstra's algorithm. Each query keeps its own search
+ * state, so one instance can answer queries from several threads at once.
  * @author rohithrokkam
  */
 public class Djikstra implements DirectionStrategy {
 	
-	/* The set of vertices visited by the algorithm. */
-	private Map<Vertex, Float> visited;
-	
-	/* For each vertex key, the value is the vertex on the shortest 
-	   route from the key to the start path adjacent to the key. */
-	private Map<Vertex, Vertex> predecessors;
-	
-	/* The set of vertices marked for future visiting by the algorithm. */
-	private Map<Vertex, Float> toVisit;
-	
 	/* The graph for computing directions. */
-	private IteratorGraph<? extends Vertex> graph;
+	private final IteratorGraph<? extends Vertex> graph;
 
 	/**
 	 * Sets up for the execution of Djikstra's algorithm.
-	 * @param start The starting vertex for the search.
-	 * @param end The ending vertex for the search.
+	 * @param graph The graph for computing directions.
 	 */
 	public Djikstra(IteratorGraph<? extends Vertex> graph) {
-		visited = new HashMap<Vertex, Float>();
-		predecessors = new HashMap<Vertex, Vertex>();
-		toVisit = new HashMap<Vertex, Float>();
 		this.graph = graph;
 	}
 	
@@ -49,98 +34,118 @@ public class Djikstra implements DirectionStrategy {
 	public Directions getDirections(Vertex start, Vertex end) {
 		if(start == null || end == null)
 			return Directions.NO_DIRECTIONS;
-		visited.put(start, 0F);
-		predecessors.put(start, null);
-		addAdjacentVerticesToVisit(start);
-		System.out.println(toVisit);
-		Vertex currentVertex;
-		do {
-			currentVertex = getNextVertex(); //Find the next vertex to search
-			if(currentVertex == null)	{		//There is no valid route to the endpoint.
-				clearAll();
-				return Directions.NO_DIRECTIONS;
-			}
-			if (end.equals(currentVertex)) { 		//We found the endpoint, so we're done.
-				return new Directions(getRouteTo(currentVertex)); //Get the route from start to end based on
-			}								//the state of the predecessor map.
-			visited.put(currentVertex, toVisit.remove(currentVertex));
-			addAdjacentVerticesToVisit(currentVertex);
-			
-		} while(!(toVisit.isEmpty()));
-		System.out.print("empty tovisit - could not find route");
-		clearAll();
-		return Directions.NO_DIRECTIONS;
+		return new Search().getDirections(start, end);
 	}
 
 	/**
-	 * Clear the hashtables of information from a run.
+	 * The state of a single run of the algorithm.
 	 */
-	private void clearAll() {
-		visited.clear();
-		predecessors.clear();
-		toVisit.clear();
-	}
+	private class Search {
 
-	/**
-	 * Adds the vertices adjacent to the specified vertex to the list of vertices to visit,
-	 * along with their distances from the start point.
-	 * @param v The vertex whose adjacent vertices are to be added.
-	 */
-	private void addAdjacentVerticesToVisit(Vertex v) {
-		for(Vertex adjVertex : graph.adjacentVertices(v)) { // iterating over vertices connected to this one.
-//			System.out.println(adjVertex);
-//			System.out.println(v);
-//			System.out.println(graph.adjacentVertices(v));
-			// Float oldDistance = toVisit.get(adjVertex);
-			if(visited.get(adjVertex) == null) {	   // true if the adjacent vertex has never been checked.
-				System.out.println(adjVertex);
-				float newDistance = visited.get(v) + v.distance(adjVertex);
-				Float oldDistance = toVisit.get(adjVertex);
-				if(oldDistance == null || newDistance < oldDistance)
-					toVisit.put(adjVertex, newDistance);
-					predecessors.put(adjVertex, v);
+		/* The set of vertices visited by the algorithm. */
+		private final Map<Vertex, Float> visited = new HashMap<Vertex, Float>();
+		
+		/* For each vertex key, the value is the vertex on the shortest 
+		   route from the key to the start path adjacent to the key. */
+		private final Map<Vertex, Vertex> predecessors = new HashMap<Vertex, Vertex>();
+		
+		/* The set of vertices marked for future visiting by the algorithm. */
+		private final Map<Vertex, Float> toVisit = new HashMap<Vertex, Float>();
+
+		/* The number of vertices visited, for checking for an interrupt now and then. */
+		private int visits = 0;
+
+		/**
+		 * Returns the list of vertices which comprise the shortest path from the
+		 * start vertex to the end vertex.
+		 */
+		private Directions getDirections(Vertex start, Vertex end) {
+			visited.put(start, 0F);
+			predecessors.put(start, null);
+			addAdjacentVerticesToVisit(start);
+			Vertex currentVertex;
+			do {
+				currentVertex = getNextVertex(); //Find the next vertex to search
+				if(currentVertex == null)	{		//There is no valid route to the endpoint.
+					return Directions.NO_DIRECTIONS;
+				}
+				if (end.equals(currentVertex)) { 		//We found the endpoint, so we're done.
+					return getRouteTo(currentVertex); //Get the route from start to end based on
+				}								//the state of the predecessor map.
+				if(++visits % 64 == 0 && Thread.currentThread().isInterrupted())
+					return Directions.NO_DIRECTIONS; // The route is no longer wanted.
+				visited.put(currentVertex, toVisit.remove(currentVertex));
+				addAdjacentVerticesToVisit(currentVertex);
+				
+			} while(!(toVisit.isEmpty()));
+			return Directions.NO_DIRECTIONS;
+		}
+
+		/**
+		 * Adds the vertices adjacent to the specified vertex to the list of vertices to visit,
+		 * along with their distances from the start point.
+		 * @param v The vertex whose adjacent vertices are to be added.
+		 */
+		private void addAdjacentVerticesToVisit(Vertex v) {
+			List<? extends Vertex> adjacent = graph.adjacentVertices(v);
+			float[] weights = graph.weights(v);
+			float distance = visited.get(v);
+			for(int i = 0; i < weights.length; i++) { // iterating over vertices connected to this one.
+				Vertex adjVertex = adjacent.get(i);
+				if(visited.get(adjVertex) == null) {	   // true if the adjacent vertex has never been checked.
+					float newDistance = distance + weights[i];
+					Float oldDistance = toVisit.get(adjVertex);
+					if(oldDistance == null || newDistance < oldDistance) {
+						toVisit.put(adjVertex, newDistance);
+						predecessors.put(adjVertex, v);
+					}
+				}
 			}
 		}
-	}
 
-	/**
-	 * Returns a list of vertices representing the route from the start vertex to the
-	 * specified vertex v.
-	 * @param v The vertex to reach from the start vertex.
-	 * @return A list of vertices containing the route from the start vertex to the
-	 * specified vertex v.
-	 */
-	private List<Vertex> getRouteTo(Vertex v) {
-		List<Vertex> route = new LinkedList<Vertex>();
-		do {
-			route.add(v);
-			v = predecessors.get(v);
-		} while(v != null);
-		Collections.reverse(route);
-		clearAll();
-		return route;
-	}
+		/**
+		 * Returns the directions from the start vertex to the specified vertex v,
+		 * which is the next vertex to be visited.
+		 * @param v The vertex to reach from the start vertex.
+		 * @return The directions from the start vertex to the specified vertex v.
+		 */
+		private Directions getRouteTo(Vertex v) {
+			int length = 0;
+			for(Vertex u = v; u != null; u = predecessors.get(u))
+				length++;
+			Vertex[] route = new Vertex[length];
+			float[] distances = new float[length];
+			route[length - 1] = v;
+			distances[length - 1] = toVisit.get(v);
+			Vertex u = predecessors.get(v);
+			for(int i = length - 2; i >= 0; i--, u = predecessors.get(u)) {
+				route[i] = u;
+				distances[i] = visited.get(u);
+			}
+			return new Directions(route, distances);
+		}
 
-	/**
-	 * Returns null if there are no eligible vertices, and the vertex with the lowest
-	 * float value otherwise.
-	 * @return null if there are no eligible vertices, and the vertex with the lowest
-	 * float value otherwise.
-	 */
-	private Vertex getNextVertex() {
-		Float minDistance = Float.MAX_VALUE;
-		Vertex nextVertex = null;
-		for(Iterator<Map.Entry<Vertex, Float>> it = toVisit.entrySet().iterator(); it.hasNext();) {
-			Map.Entry<Vertex, Float> entry = it.next();
-			Vertex v = entry.getKey();
-			if(visited.get(v) == null) {
-				float dist = entry.getValue();
-				if(dist < minDistance) {
-					minDistance = dist;
-					nextVertex = entry.getKey();
+		/**
+		 * Returns null if there are no eligible vertices, and the vertex with the lowest
+		 * float value otherwise.
+		 * @return null if there are no eligible vertices, and the vertex with the lowest
+		 * float value otherwise.
+		 */
+		private Vertex getNextVertex() {
+			Float minDistance = Float.MAX_VALUE;
+			Vertex nextVertex = null;
+			for(Iterator<Map.Entry<Vertex, Float>> it = toVisit.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<Vertex, Float> entry = it.next();
+				Vertex v = entry.getKey();
+				if(visited.get(v) == null) {
+					float dist = entry.getValue();
+					if(dist < minDistance) {
+						minDistance = dist;
+						nextVertex = entry.getKey();
+					}
 				}
 			}
+			return nextVertex;
 		}
-		return nextVertex;
 	}
-}
\ No newline at end of file
+}
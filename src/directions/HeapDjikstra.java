@@ -0,0 +1,129 @@
+package directions;
+
+import data.CompactGraph;
+import data.IteratorGraph;
+import data.Pool;
+
+/**
+ * An implementation of Djikstra's algorithm which keeps its frontier in a
+ * binary heap instead of scanning every frontier vertex on each step.
+ * The search runs on a CompactGraph, so vertices have dense ids and
+ * tentative distances and predecessors can be held in primitive arrays.
+ * Stale heap entries are skipped when they are polled (lazy deletion).
+ * A search runs in O((V + E) log V) time.
+ *
+ * The strategy itself is never modified by a query. Each query takes its
+ * own search context from a pool, so queries may run concurrently.
+ * @author rohithrokkam
+ */
+public class HeapDjikstra implements DirectionStrategy {
+
+	/* The graph for computing directions. */
+	private final CompactGraph graph;
+
+	/* Search contexts which are not in use by a query. */
+	private final Pool<SearchContext> contexts;
+
+	/**
+	 * Sets up for the execution of Djikstra's algorithm over a graph.
+	 * @param graph The graph for computing directions.
+	 */
+	public HeapDjikstra(IteratorGraph<? extends Vertex> graph) {
+		this(new CompactGraph(graph));
+	}
+
+	/**
+	 * Sets up for the execution of Djikstra's algorithm over a compact graph.
+	 * @param graph The graph for computing directions.
+	 */
+	public HeapDjikstra(CompactGraph graph) {
+		this.graph = graph;
+		int size = graph.size();
+		contexts = new Pool<SearchContext>(() -> new SearchContext(size));
+	}
+
+	/**
+	 * Returns the directions which comprise the shortest path from the start vertex
+	 * to the end vertex, or NO_DIRECTIONS if there is no such path.
+	 * @return The directions which comprise the shortest path from the start vertex
+	 * to the end vertex.
+	 */
+	@Override
+	public Directions getDirections(Vertex start, Vertex end) {
+		if(start == null || end == null)
+			return Directions.NO_DIRECTIONS;
+		int source = graph.id(start);
+		int target = graph.id(end);
+		if(source == -1 || target == -1)
+			return Directions.NO_DIRECTIONS;
+		float key = estimate(source, target);
+		if(key == Float.POSITIVE_INFINITY)
+			return Directions.NO_DIRECTIONS;
+		SearchContext context = contexts.take();
+		try {
+			context.begin(source, key);
+			while(!context.toVisit.isEmpty()) {
+				int current = context.toVisit.poll();
+				if(!context.settle(current)) // Stale entry.
+					continue;
+				if(context.isInterrupted())
+					return Directions.NO_DIRECTIONS; // The route is no longer wanted.
+				if(current == target)
+					return context.routeTo(graph, current);
+				addAdjacentVerticesToVisit(context, current, target);
+			}
+			return Directions.NO_DIRECTIONS;
+		} finally {
+			contexts.give(context);
+		}
+	}
+
+	/**
+	 * Return an estimate of the distance from the specified vertex to the
+	 * end vertex of the search. The estimate is added to the key of every
+	 * vertex placed in the heap. It must never overestimate the true
+	 * distance, or the directions found may not be the shortest. An estimate of
+	 * Float.POSITIVE_INFINITY means the end vertex cannot be reached from the
+	 * vertex, which is then never visited. Estimates may be requested by
+	 * several queries at once.
+	 * The default estimate is zero, which gives plain Djikstra's algorithm.
+	 * @param v The id of the vertex whose distance is to be estimated.
+	 * @param end The id of the end vertex of the search.
+	 * @return A lower bound on the distance from v to end.
+	 */
+	protected float estimate(int v, int end) {
+		return 0F;
+	}
+
+	/**
+	 * Return the graph searched by this strategy.
+	 * @return The graph searched by this strategy.
+	 */
+	protected CompactGraph graph() {
+		return graph;
+	}
+
+	/**
+	 * Adds the vertices adjacent to the specified vertex to the heap of vertices
+	 * to visit, if their distances from the start point have improved.
+	 * @param context The state of the current search.
+	 * @param v The id of the vertex whose adjacent vertices are to be added.
+	 * @param target The id of the end vertex of the search.
+	 */
+	private void addAdjacentVerticesToVisit(SearchContext context, int v, int target) {
+		float distance = context.distances[v];
+		for(int e = graph.begin(v), end = graph.end(v); e < end; e++) {
+			int adj = graph.target(e);
+			if(context.isSettled(adj))
+				continue;
+			float newDistance = distance + graph.weight(e);
+			if(!context.isReached(adj) || newDistance < context.distances[adj]) {
+				float key = newDistance + estimate(adj, target);
+				if(key == Float.POSITIVE_INFINITY)
+					continue; // The end vertex cannot be reached from here.
+				context.reach(adj, newDistance, v, e);
+				context.toVisit.add(adj, key);
+			}
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package directions;
+
+import data.IntList;
+import data.Pool;
+
+/**
+ * A query strategy for a contraction hierarchy. A forward search from the start
+ * vertex follows only upward edges, and a backward search from the end vertex
+ * follows only downward edges against their direction, so both climb the
+ * hierarchy. The shortest route passes through the vertex of highest rank on it,
+ * which both searches reach. Shortcuts on the route are unpacked into the
+ * original vertices before the directions are returned.
+ * Queries take their state from a pool, so they may run concurrently over
+ * one shared hierarchy.
+ * @author rohithrokkam
+ */
+public class HierarchyDjikstra implements DirectionStrategy {
+
+	/* The preprocessed hierarchy searched by this strategy. */
+	private final ContractionHierarchy hierarchy;
+
+	/* Query states which are not in use. */
+	private final Pool<Query> queries;
+
+	/**
+	 * Sets up for queries over a contraction hierarchy.
+	 * @param hierarchy The preprocessed hierarchy to be searched.
+	 */
+	public HierarchyDjikstra(ContractionHierarchy hierarchy) {
+		this.hierarchy = hierarchy;
+		queries = new Pool<Query>(() -> new Query(hierarchy.size()));
+	}
+
+	/**
+	 * Returns the directions which comprise the shortest path from the start vertex
+	 * to the end vertex, or NO_DIRECTIONS if there is no such path.
+	 * @return The directions which comprise the shortest path from the start vertex
+	 * to the end vertex.
+	 */
+	@Override
+	public Directions getDirections(Vertex start, Vertex end) {
+		if(start == null || end == null)
+			return Directions.NO_DIRECTIONS;
+		int source = hierarchy.id(start);
+		int target = hierarchy.id(end);
+		if(source == -1 || target == -1)
+			return Directions.NO_DIRECTIONS;
+		Query query = queries.take();
+		try {
+			return query.run(source, target);
+		} finally {
+			queries.give(query);
+		}
+	}
+
+	/**
+	 * The state of one hierarchy query.
+	 */
+	private class Query {
+
+		/* The search from the start vertex, over upward edges. */
+		private final SearchContext forward;
+
+		/* The search from the end vertex, over downward edges. */
+		private final SearchContext backward;
+
+		/* The length of the shortest route found so far. */
+		private float bestDistance;
+
+		/* The vertex of highest rank on the shortest route found so far, or -1. */
+		private int meeting;
+
+		/**
+		 * Construct the state for queries over a hierarchy of the specified size.
+		 */
+		private Query(int size) {
+			forward = new SearchContext(size);
+			backward = new SearchContext(size);
+		}
+
+		/**
+		 * Find the directions from one vertex to another.
+		 */
+		private Directions run(int source, int target) {
+			bestDistance = Float.POSITIVE_INFINITY;
+			meeting = -1;
+			forward.begin(source, 0F);
+			backward.begin(target, 0F);
+			while(true) {
+				float forwardKey = forward.toVisit.peekKey();
+				float backwardKey = backward.toVisit.peekKey();
+				// Each search can stop once its frontier is no closer than the
+				// best route, since it only climbs away from its origin.
+				if(Math.min(forwardKey, backwardKey) >= bestDistance)
+					break;
+				if(forward.isInterrupted())
+					return Directions.NO_DIRECTIONS; // The route is no longer wanted.
+				if(forwardKey <= backwardKey)
+					step(forward, backward, true);
+				else
+					step(backward, forward, false);
+			}
+			if(meeting == -1)
+				return Directions.NO_DIRECTIONS;
+			return getRouteThrough(meeting);
+		}
+
+		/**
+		 * Settle the next vertex of one search and relax its edges.
+		 * @param side The search to be advanced.
+		 * @param other The search in the opposite direction.
+		 * @param upward Whether the advanced search follows upward edges (forward)
+		 * or downward edges against their direction (backward).
+		 */
+		private void step(SearchContext side, SearchContext other, boolean upward) {
+			int v = side.toVisit.poll();
+			if(!side.settle(v)) // Stale entry.
+				return;
+			float distance = side.distances[v];
+			if(other.isReached(v) && distance + other.distances[v] < bestDistance) {
+				bestDistance = distance + other.distances[v];
+				meeting = v;
+			}
+			int begin = upward ? hierarchy.upBegin(v) : hierarchy.downBegin(v);
+			int end = upward ? hierarchy.upEnd(v) : hierarchy.downEnd(v);
+			for(int e = begin; e < end; e++) {
+				int adj = upward ? hierarchy.upTarget(e) : hierarchy.downSource(e);
+				float newDistance = distance
+						+ (upward ? hierarchy.upWeight(e) : hierarchy.downWeight(e));
+				if(!side.isReached(adj) || newDistance < side.distances[adj]) {
+					side.reach(adj, newDistance, v, e);
+					side.toVisit.add(adj, newDistance);
+					if(other.isReached(adj)
+							&& newDistance + other.distances[adj] < bestDistance) {
+						bestDistance = newDistance + other.distances[adj];
+						meeting = adj;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Returns the directions from the start vertex to the end vertex through
+		 * the specified vertex, with every shortcut unpacked.
+		 * @param v The id of the vertex at which the searches meet.
+		 * @return The directions from the start vertex to the end vertex.
+		 */
+		private Directions getRouteThrough(int v) {
+			IntList upward = new IntList(); // Heads of the edges climbed forward.
+			int u = v;
+			for(; forward.predecessors[u] != -1; u = forward.predecessors[u])
+				upward.add(u);
+			IntList route = new IntList();
+			route.add(u);
+			for(int i = upward.size() - 1; i >= 0; i--) {
+				int head = upward.get(i);
+				hierarchy.unpackUp(forward.predecessors[head], forward.edges[head], route);
+			}
+			for(u = v; backward.predecessors[u] != -1; u = backward.predecessors[u])
+				hierarchy.unpackDown(backward.predecessors[u], backward.edges[u], route);
+			return new Directions(hierarchy.graph(), route.toArray(), null);
+		}
+	}
+}
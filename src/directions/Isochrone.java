@@ -0,0 +1,87 @@
+package directions;
+
+import java.util.Arrays;
+
+import data.CompactGraph;
+
+/**
+ * The vertices found by a distance-bounded search, with the length of the
+ * shortest route between each of them and the origin of the search. Vertices
+ * are held as ids in a primitive array, in order of increasing distance, and
+ * resolved through the graph only when asked.
+ * @author rohithrokkam
+ */
+public class Isochrone {
+
+	/* The graph which gives the vertices their ids. */
+	private final CompactGraph graph;
+
+	/* The ids of the vertices found, in order of increasing distance. */
+	private final int[] ids;
+
+	/* The distance of each vertex found. */
+	private final float[] distances;
+
+	/**
+	 * Construct the result of a distance-bounded search.
+	 * @param graph The graph which gives the vertices their ids.
+	 * @param ids The ids of the vertices found, in order of increasing distance.
+	 * @param distances The distance of each vertex found.
+	 */
+	Isochrone(CompactGraph graph, int[] ids, float[] distances) {
+		this.graph = graph;
+		this.ids = ids;
+		this.distances = distances;
+	}
+
+	/**
+	 * Return the number of vertices found.
+	 * @return The number of vertices found.
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * Return the id in the searched graph of a vertex found.
+	 * @param index The position of the vertex, from 0.
+	 * @return The id of the vertex at the specified position.
+	 */
+	public int id(int index) {
+		return ids[index];
+	}
+
+	/**
+	 * Return a vertex found.
+	 * @param index The position of the vertex, from 0.
+	 * @return The vertex at the specified position.
+	 */
+	public Vertex vertex(int index) {
+		return graph.vertex(ids[index]);
+	}
+
+	/**
+	 * Return the distance between the origin and a vertex found.
+	 * @param index The position of the vertex, from 0.
+	 * @return The distance of the vertex at the specified position.
+	 */
+	public float distance(int index) {
+		return distances[index];
+	}
+
+	/**
+	 * Return a copy of the ids of the vertices found, in order of increasing distance.
+	 * @return The ids of the vertices found.
+	 */
+	public int[] ids() {
+		return Arrays.copyOf(ids, ids.length);
+	}
+
+	/**
+	 * Return a copy of the distances of the vertices found, in the order of ids().
+	 * @return The distances of the vertices found.
+	 */
+	public float[] distances() {
+		return Arrays.copyOf(distances, distances.length);
+	}
+}
@@ -0,0 +1,57 @@
+package directions;
+
+import data.CompactGraph;
+import data.IteratorGraph;
+
+/**
+ * An implementation of the ALT algorithm: A* guided by landmark distance tables.
+ * The estimate for each vertex is the larger of the landmark bound and the
+ * great-circle bound of AStar. Both are consistent lower bounds, so the larger
+ * one is too, and the directions found are the shortest.
+ * @author rohithrokkam
+ */
+public class LandmarkAStar extends AStar {
+
+	/* The landmark tables used for estimates. */
+	private final Landmarks landmarks;
+
+	/* The id in the landmark tables of each vertex, by its id in this strategy. */
+	private final int[] landmarkIds;
+
+	/**
+	 * Sets up for the execution of the ALT algorithm over a graph.
+	 * @param graph The graph for computing directions.
+	 * @param landmarks Landmark tables computed or loaded for the same graph.
+	 */
+	public LandmarkAStar(IteratorGraph<? extends Vertex> graph, Landmarks landmarks) {
+		this(new CompactGraph(graph), landmarks);
+	}
+
+	/**
+	 * Sets up for the execution of the ALT algorithm over a compact graph.
+	 * @param graph The graph for computing directions.
+	 * @param landmarks Landmark tables computed or loaded for the same graph.
+	 */
+	public LandmarkAStar(CompactGraph graph, Landmarks landmarks) {
+		super(graph);
+		this.landmarks = landmarks;
+		landmarkIds = new int[graph.size()];
+		for(int id = 0; id < landmarkIds.length; id++)
+			landmarkIds[id] = landmarks.id(graph.vertex(id));
+	}
+
+	/**
+	 * Return the larger of the landmark and great-circle estimates of the
+	 * distance from the vertex to the end vertex.
+	 * @return A lower bound on the distance from v to end.
+	 */
+	@Override
+	protected float estimate(int v, int end) {
+		float estimate = super.estimate(v, end);
+		int from = landmarkIds[v];
+		int to = landmarkIds[end];
+		if(from != -1 && to != -1)
+			estimate = Math.max(estimate, landmarks.estimate(from, to));
+		return estimate;
+	}
+}
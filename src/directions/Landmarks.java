@@ -0,0 +1,381 @@
+package directions;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import data.CompactGraph;
+import data.IntHeap;
+import data.IteratorGraph;
+import elements.Element;
+
+/**
+ * Landmark distance tables for the ALT variant of A* (A*, landmarks and the
+ * triangle inequality). A few landmark vertices are chosen far apart from one
+ * another, and the distance from every landmark to every vertex, and from every
+ * vertex to every landmark, is computed once. By the triangle inequality, for a
+ * landmark L the distance from v to t is at least d(L, t) - d(L, v) and at least
+ * d(v, L) - d(t, L), which gives a lower bound on the remaining distance that is
+ * usually much tighter than the straight-line distance.
+ *
+ * Tables can be saved to a file next to the map and loaded on the next start.
+ * Saved tables refer to vertices by their element ids, so only graphs of
+ * Elements can be saved. A hash of the graph's edges and weights is saved with
+ * them, so tables saved for a different version of the map are not loaded:
+ * their distances could overestimate, and routes would not be shortest.
+ * @author rohithrokkam
+ */
+public class Landmarks {
+
+	/* The default number of landmarks to choose. */
+	public static final int DEFAULT_LANDMARKS = 8;
+
+	/* The number of vertices tried as seeds for choosing landmarks. */
+	private static final int SEED_CANDIDATES = 16;
+
+	/* A number identifying landmark files. */
+	private static final int FILE_MAGIC = 0x4c4d4b32;
+
+	/* The graph whose vertex ids index the tables. */
+	private final CompactGraph graph;
+
+	/* The ids of the landmarks. */
+	private final int[] landmarks;
+
+	/* For each landmark, the distance from the landmark to each vertex. */
+	private final float[][] fromLandmark;
+
+	/* For each landmark, the distance from each vertex to the landmark. */
+	private final float[][] toLandmark;
+
+	/**
+	 * Choose the default number of landmarks in a graph and compute their tables.
+	 * @param graph The graph for computing directions.
+	 */
+	public Landmarks(IteratorGraph<? extends Vertex> graph) {
+		this(new CompactGraph(graph), DEFAULT_LANDMARKS);
+	}
+
+	/**
+	 * Choose landmarks in a graph and compute their tables. The first landmark is
+	 * the vertex farthest from a seed vertex in a large part of the graph, and each
+	 * further landmark is the vertex farthest from the landmarks already chosen.
+	 * @param graph The graph for computing directions.
+	 * @param count The number of landmarks to choose.
+	 */
+	public Landmarks(CompactGraph graph, int count) {
+		this.graph = graph;
+		Search search = new Search();
+		int first = seed(search);
+		count = (first == -1) ? 0 : Math.min(count, graph.size());
+		int[] chosen = new int[count];
+		float[][] from = new float[count][];
+		float[][] to = new float[count][];
+		int found = 0;
+		int[] sources = new int[] { first };
+		while(found < count) {
+			int landmark = farthest(search.run(sources, false));
+			if(landmark == -1)
+				break;
+			chosen[found] = landmark;
+			from[found] = search.run(new int[] { landmark }, false);
+			to[found] = search.run(new int[] { landmark }, true);
+			found++;
+			sources = Arrays.copyOf(chosen, found);
+		}
+		landmarks = Arrays.copyOf(chosen, found);
+		fromLandmark = Arrays.copyOf(from, found);
+		toLandmark = Arrays.copyOf(to, found);
+	}
+
+	/**
+	 * Construct landmark tables read from a file.
+	 */
+	private Landmarks(CompactGraph graph, int[] landmarks,
+			float[][] fromLandmark, float[][] toLandmark) {
+		this.graph = graph;
+		this.landmarks = landmarks;
+		this.fromLandmark = fromLandmark;
+		this.toLandmark = toLandmark;
+	}
+
+	/**
+	 * Return the dense id of a vertex, or -1 if it is not in the tables.
+	 * @param v The vertex whose id is to be found.
+	 * @return The dense id of the vertex, or -1 if it is not in the tables.
+	 */
+	public int id(Vertex v) {
+		return graph.id(v);
+	}
+
+	/**
+	 * Return the number of landmarks.
+	 * @return The number of landmarks.
+	 */
+	public int count() {
+		return landmarks.length;
+	}
+
+	/**
+	 * Return a lower bound on the distance from one vertex to another, using
+	 * the landmark tables. Returns Float.POSITIVE_INFINITY if the tables show
+	 * that the end vertex cannot be reached.
+	 * @param v The id of the vertex whose distance is to be estimated.
+	 * @param end The id of the end vertex.
+	 * @return A lower bound on the distance from v to end.
+	 */
+	public float estimate(int v, int end) {
+		float estimate = 0F;
+		for(int i = 0; i < landmarks.length; i++) {
+			float[] to = toLandmark[i];
+			if(to[end] != Float.POSITIVE_INFINITY) {
+				// The end vertex reaches the landmark, so v must too if it reaches end.
+				if(to[v] == Float.POSITIVE_INFINITY)
+					return Float.POSITIVE_INFINITY;
+				estimate = Math.max(estimate, to[v] - to[end]);
+			}
+			float[] from = fromLandmark[i];
+			if(from[end] != Float.POSITIVE_INFINITY && from[v] != Float.POSITIVE_INFINITY)
+				estimate = Math.max(estimate, from[end] - from[v]);
+		}
+		return estimate;
+	}
+
+	/**
+	 * Save these tables to a file.
+	 * @param file The file to which the tables are written.
+	 * @throws IOException If the file cannot be written, or if the graph has
+	 * vertices which are not Elements.
+	 */
+	public void save(File file) throws IOException {
+		try(DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(graph.size());
+			out.writeInt(landmarks.length);
+			for(int id = 0; id < graph.size(); id++) {
+				Vertex v = graph.vertex(id);
+				if(!(v instanceof Element))
+					throw new IOException("Only graphs of elements can be saved.");
+				out.writeUTF(((Element) v).id());
+			}
+			int[] order = new int[graph.size()];
+			for(int id = 0; id < order.length; id++)
+				order[id] = id;
+			out.writeLong(hash(graph, order));
+			for(int i = 0; i < landmarks.length; i++) {
+				out.writeInt(landmarks[i]);
+				for(float distance : fromLandmark[i])
+					out.writeFloat(distance);
+				for(float distance : toLandmark[i])
+					out.writeFloat(distance);
+			}
+		}
+	}
+
+	/**
+	 * Load tables saved for a graph from a file. The graph need not give its
+	 * vertices the same ids as the graph for which the tables were saved.
+	 * @param file The file from which the tables are read.
+	 * @param graph The graph of elements for which the tables were saved.
+	 * @return The landmark tables read from the file.
+	 * @throws IOException If the file cannot be read, or if it does not
+	 * match the graph.
+	 */
+	public static Landmarks load(File file, CompactGraph graph) throws IOException {
+		int size = graph.size();
+		Map<String, Integer> elementIds = new HashMap<String, Integer>(size * 2);
+		for(int id = 0; id < size; id++)
+			if(graph.vertex(id) instanceof Element)
+				elementIds.put(((Element) graph.vertex(id)).id(), id);
+		try(DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file)))) {
+			if(in.readInt() != FILE_MAGIC)
+				throw new IOException("Not a landmark file: " + file.getName());
+			int savedSize = in.readInt();
+			int count = in.readInt();
+			if(savedSize != size)
+				throw new IOException("Landmark file does not match map: " + file.getName());
+			if(count < 0 || count > size)
+				throw new IOException("Landmark file is corrupt: " + file.getName());
+			int[] ids = new int[size]; // The id in the graph of each saved vertex.
+			boolean[] matched = new boolean[size];
+			for(int v = 0; v < size; v++) {
+				Integer id = elementIds.get(in.readUTF());
+				if(id == null || matched[id])
+					throw new IOException("Landmark file does not match map: " + file.getName());
+				ids[v] = id;
+				matched[id] = true;
+			}
+			if(in.readLong() != hash(graph, ids))
+				throw new IOException("Landmark file was saved for another version of the map: "
+						+ file.getName());
+			int[] landmarks = new int[count];
+			float[][] fromLandmark = new float[count][size];
+			float[][] toLandmark = new float[count][size];
+			for(int i = 0; i < count; i++) {
+				int landmark = in.readInt();
+				if(landmark < 0 || landmark >= size)
+					throw new IOException("Landmark file is corrupt: " + file.getName());
+				landmarks[i] = ids[landmark];
+				for(int v = 0; v < size; v++)
+					fromLandmark[i][ids[v]] = in.readFloat();
+				for(int v = 0; v < size; v++)
+					toLandmark[i][ids[v]] = in.readFloat();
+			}
+			return new Landmarks(graph, landmarks, fromLandmark, toLandmark);
+		}
+	}
+
+	/**
+	 * Return a hash of the edges and weights of a graph, with its vertices taken
+	 * in a specified order, so that graphs which give the same vertices
+	 * different ids hash alike. The edges of each vertex are hashed in any order.
+	 * @param graph The graph to be hashed.
+	 * @param order The id in the graph of each vertex, in the order hashed.
+	 * @return A hash of the graph.
+	 */
+	private static long hash(CompactGraph graph, int[] order) {
+		int[] positions = new int[order.length]; // The position of each id in the order.
+		for(int i = 0; i < order.length; i++)
+			positions[order[i]] = i;
+		long hash = order.length;
+		for(int i = 0; i < order.length; i++) {
+			int v = order[i];
+			long edges = 0; // The sum of the edge hashes, which ignores their order.
+			for(int e = graph.begin(v), end = graph.end(v); e < end; e++)
+				edges += mix(((long) positions[graph.target(e)] << 32)
+						| (Float.floatToIntBits(graph.weight(e)) & 0xFFFFFFFFL));
+			hash = mix(hash * 31 + graph.end(v) - graph.begin(v)) + edges;
+		}
+		return hash;
+	}
+
+	/**
+	 * Scramble the bits of a value, for hashing.
+	 */
+	private static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+
+	/**
+	 * Load tables for a graph from a file if it exists and matches the graph.
+	 * Otherwise, choose landmarks, compute their tables and try to save them
+	 * to the file for next time.
+	 * @param file The file in which the tables are kept.
+	 * @param graph The graph for computing directions.
+	 * @param count The number of landmarks to choose if the tables are rebuilt.
+	 * @return The landmark tables for the graph.
+	 */
+	public static Landmarks loadOrBuild(File file, CompactGraph graph, int count) {
+		if(file.exists()) {
+			try {
+				return load(file, graph);
+			} catch (IOException e) {
+				System.err.println("Rebuilding landmarks: " + e.getMessage());
+			}
+		}
+		Landmarks landmarks = new Landmarks(graph, count);
+		try {
+			landmarks.save(file);
+		} catch (IOException e) {
+			System.err.println("Could not save landmarks: " + file.getName());
+		}
+		return landmarks;
+	}
+
+	/**
+	 * Return the vertex, among a few spread through the graph, from which the
+	 * most vertices can be reached, or -1 if the graph has no edges. Landmarks
+	 * are only chosen among vertices reachable from the seed, and OSM graphs
+	 * have many small pieces (such as building outlines) that would waste them.
+	 */
+	private int seed(Search search) {
+		int size = graph.size();
+		int seed = -1;
+		int mostReached = 0;
+		int step = Math.max(1, size / SEED_CANDIDATES);
+		for(int v = 0; v < size; v += step) {
+			int candidate = v;
+			while(candidate < size && graph.begin(candidate) == graph.end(candidate))
+				candidate++;
+			if(candidate == size)
+				break;
+			int reached = 0;
+			for(float distance : search.run(new int[] { candidate }, false))
+				if(distance != Float.POSITIVE_INFINITY)
+					reached++;
+			if(reached > mostReached) {
+				mostReached = reached;
+				seed = candidate;
+			}
+		}
+		return seed;
+	}
+
+	/**
+	 * Return the id of the vertex with the largest finite distance, or -1
+	 * if no vertex has a positive finite distance.
+	 */
+	private static int farthest(float[] distances) {
+		int farthest = -1;
+		float maxDistance = 0F;
+		for(int v = 0; v < distances.length; v++) {
+			if(distances[v] != Float.POSITIVE_INFINITY && distances[v] > maxDistance) {
+				maxDistance = distances[v];
+				farthest = v;
+			}
+		}
+		return farthest;
+	}
+
+	/**
+	 * A Djikstra search from a set of vertices to every vertex of the graph.
+	 */
+	private class Search {
+
+		/* The vertices marked for future visiting. */
+		private final IntHeap toVisit = new IntHeap(graph.size());
+
+		/**
+		 * Return the distance to every vertex from the nearest of the sources,
+		 * or from every vertex to the nearest of the sources if reversed.
+		 */
+		private float[] run(int[] sources, boolean reversed) {
+			CompactGraph g = reversed ? graph.reverse() : graph;
+			float[] distances = new float[g.size()];
+			boolean[] settled = new boolean[g.size()];
+			Arrays.fill(distances, Float.POSITIVE_INFINITY);
+			toVisit.clear();
+			for(int source : sources) {
+				distances[source] = 0F;
+				toVisit.add(source, 0F);
+			}
+			while(!toVisit.isEmpty()) {
+				int v = toVisit.poll();
+				if(settled[v])
+					continue;
+				settled[v] = true;
+				for(int e = g.begin(v), end = g.end(v); e < end; e++) {
+					int adj = g.target(e);
+					float newDistance = distances[v] + g.weight(e);
+					if(!settled[adj] && newDistance < distances[adj]) {
+						distances[adj] = newDistance;
+						toVisit.add(adj, newDistance);
+					}
+				}
+			}
+			return distances;
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package directions;
+
+/**
+ * A direction strategy which returns NO_DIRECTIONS at once when the components
+ * of the graph show that the end vertex cannot be reached from the start vertex,
+ * and asks another strategy for the directions otherwise. Without the check,
+ * a search for an impossible route explores everything reachable from the start
+ * vertex before it gives up.
+ * @author rohithrokkam
+ */
+public class ReachabilityCheckedStrategy implements DirectionStrategy {
+
+	/* The strategy which finds directions that may exist. */
+	private final DirectionStrategy strategy;
+
+	/* The components of the graph searched by the strategy. */
+	private final Components components;
+
+	/**
+	 * Construct a check in front of a strategy.
+	 * @param strategy The strategy which finds directions that may exist.
+	 * @param components The components of the graph searched by the strategy.
+	 */
+	public ReachabilityCheckedStrategy(DirectionStrategy strategy, Components components) {
+		this.strategy = strategy;
+		this.components = components;
+	}
+
+	/**
+	 * Returns the directions from the start vertex to the end vertex, or
+	 * NO_DIRECTIONS if there is no route between them.
+	 * @return The directions from the start vertex to the end vertex.
+	 */
+	@Override
+	public Directions getDirections(Vertex start, Vertex end) {
+		if(!components.mayReach(start, end))
+			return Directions.NO_DIRECTIONS;
+		return strategy.getDirections(start, end);
+	}
+}
@@ -0,0 +1,92 @@
+package directions;
+
+import data.CompactGraph;
+import data.IteratorGraph;
+
+/**
+ * An implementation of Djikstra's algorithm which keeps its search from the last
+ * start vertex between queries. Users often keep the start fixed and try several
+ * end vertices; a query for an end vertex the search has already settled is
+ * answered from the kept predecessors with no further search, and a query for
+ * any other end vertex resumes the search where it stopped. A query from a
+ * different start vertex begins a new search.
+ *
+ * The kept search is shared by every caller, so queries are serialized.
+ * @author rohithrokkam
+ */
+public class ResumableDjikstra implements DirectionStrategy {
+
+	/* The graph for computing directions. */
+	private final CompactGraph graph;
+
+	/* The search from the last start vertex. */
+	private final SearchContext context;
+
+	/* The id of the last start vertex, or -1 before the first query. */
+	private int source = -1;
+
+	/**
+	 * Sets up for the execution of Djikstra's algorithm over a graph.
+	 * @param graph The graph for computing directions.
+	 */
+	public ResumableDjikstra(IteratorGraph<? extends Vertex> graph) {
+		this(new CompactGraph(graph));
+	}
+
+	/**
+	 * Sets up for the execution of Djikstra's algorithm over a compact graph.
+	 * @param graph The graph for computing directions.
+	 */
+	public ResumableDjikstra(CompactGraph graph) {
+		this.graph = graph;
+		context = new SearchContext(graph.size());
+	}
+
+	/**
+	 * Returns the directions which comprise the shortest path from the start vertex
+	 * to the end vertex, or NO_DIRECTIONS if there is no such path.
+	 * @return The directions which comprise the shortest path from the start vertex
+	 * to the end vertex.
+	 */
+	@Override
+	public synchronized Directions getDirections(Vertex start, Vertex end) {
+		if(start == null || end == null)
+			return Directions.NO_DIRECTIONS;
+		int from = graph.id(start);
+		int target = graph.id(end);
+		if(from == -1 || target == -1)
+			return Directions.NO_DIRECTIONS;
+		if(from != source) {
+			source = from;
+			context.begin(source, 0F);
+		}
+		while(!context.isSettled(target) && !context.toVisit.isEmpty()) {
+			if(context.isInterrupted())
+				return Directions.NO_DIRECTIONS; // The search resumes on the next query.
+			settleNext();
+		}
+		if(!context.isSettled(target))
+			return Directions.NO_DIRECTIONS;
+		return context.routeTo(graph, target);
+	}
+
+	/**
+	 * Settle the next vertex of the search and relax its edges.
+	 */
+	private void settleNext() {
+		int v = context.toVisit.poll();
+		if(!context.settle(v)) // Stale entry.
+			return;
+		float distance = context.distances[v];
+		for(int e = graph.begin(v), end = graph.end(v); e < end; e++) {
+			int adj = graph.target(e);
+			if(context.isSettled(adj))
+				continue;
+			float newDistance = distance + graph.weight(e);
+			if(!context.isReached(adj) || newDistance < context.distances[adj]) {
+				context.reach(adj, newDistance, v, e);
+				context.toVisit.add(adj, newDistance);
+			}
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package directions;
+
+import java.util.Arrays;
+
+import data.CompactGraph;
+import data.IntHeap;
+import data.IntList;
+import data.IteratorGraph;
+
+/**
+ * A direction strategy for a driver heading to a fixed destination. The first
+ * query for a destination runs one Djikstra search backward from it over the
+ * reverse graph, which gives, for every vertex that can reach the destination,
+ * its distance to the destination and the next vertex on its shortest route
+ * there. Every later query for the same destination, from any start vertex, is
+ * answered by following these next vertices, with no search at all, so rerouting
+ * a driver who has left the route costs only the length of the new route.
+ *
+ * The tree for the latest destination is immutable and replaced as a whole,
+ * so queries may run concurrently.
+ * @author rohithrokkam
+ */
+public class ReverseTreeDjikstra implements DirectionStrategy {
+
+	/* The graph for computing directions. */
+	private final CompactGraph graph;
+
+	/* The shortest-route tree to the latest destination, or null. */
+	private volatile Tree tree;
+
+	/**
+	 * Sets up for reverse searches over a graph.
+	 * @param graph The graph for computing directions.
+	 */
+	public ReverseTreeDjikstra(IteratorGraph<? extends Vertex> graph) {
+		this(new CompactGraph(graph));
+	}
+
+	/**
+	 * Sets up for reverse searches over a compact graph.
+	 * @param graph The graph for computing directions.
+	 */
+	public ReverseTreeDjikstra(CompactGraph graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * Returns the directions which comprise the shortest path from the start vertex
+	 * to the end vertex, or NO_DIRECTIONS if there is no such path. The tree for the
+	 * end vertex is built if it is not the latest destination.
+	 * @return The directions which comprise the shortest path from the start vertex
+	 * to the end vertex.
+	 */
+	@Override
+	public Directions getDirections(Vertex start, Vertex end) {
+		if(start == null || end == null)
+			return Directions.NO_DIRECTIONS;
+		int source = graph.id(start);
+		int target = graph.id(end);
+		if(source == -1 || target == -1)
+			return Directions.NO_DIRECTIONS;
+		return treeTo(target).getRouteFrom(source);
+	}
+
+	/**
+	 * Return the length of the shortest route from the start vertex to the end
+	 * vertex, or Float.POSITIVE_INFINITY if there is no such route. The tree for
+	 * the end vertex is built if it is not the latest destination.
+	 * @param start The start vertex of the route.
+	 * @param end The end vertex of the route.
+	 * @return The length of the shortest route from start to end.
+	 */
+	public float distance(Vertex start, Vertex end) {
+		if(start == null || end == null)
+			return Float.POSITIVE_INFINITY;
+		int source = graph.id(start);
+		int target = graph.id(end);
+		if(source == -1 || target == -1)
+			return Float.POSITIVE_INFINITY;
+		return treeTo(target).distances[source];
+	}
+
+	/**
+	 * Return the shortest-route tree to a destination, building it if it is
+	 * not the tree for the latest destination. A tree whose search was
+	 * interrupted is returned empty and not kept.
+	 */
+	private Tree treeTo(int target) {
+		Tree current = tree;
+		if(current == null || current.destination != target) {
+			current = new Tree(target);
+			if(current.complete)
+				tree = current;
+		}
+		return current;
+	}
+
+	/**
+	 * The shortest routes from every vertex to one destination.
+	 */
+	private class Tree {
+
+		/* The id of the destination. */
+		private final int destination;
+
+		/* The distance from each vertex to the destination. */
+		private final float[] distances;
+
+		/* The id of the vertex after each vertex on its shortest route to the
+		   destination, or -1 for the destination and unreachable vertices. */
+		private final int[] next;
+
+		/* Whether the search ran to the end; an interrupted tree reaches nothing. */
+		private final boolean complete;
+
+		/**
+		 * Build the tree by a Djikstra search from the destination over the
+		 * reverse graph.
+		 */
+		private Tree(int destination) {
+			this.destination = destination;
+			CompactGraph reverse = graph.reverse();
+			int size = graph.size();
+			distances = new float[size];
+			next = new int[size];
+			boolean[] settled = new boolean[size];
+			Arrays.fill(distances, Float.POSITIVE_INFINITY);
+			Arrays.fill(next, -1);
+			IntHeap toVisit = new IntHeap();
+			distances[destination] = 0F;
+			toVisit.add(destination, 0F);
+			int count = 0; // Vertices settled, for checking for an interrupt now and then.
+			boolean interrupted = false;
+			while(!toVisit.isEmpty()) {
+				int v = toVisit.poll();
+				if(settled[v]) // Stale entry.
+					continue;
+				settled[v] = true;
+				if(++count % 64 == 0 && Thread.currentThread().isInterrupted()) {
+					interrupted = true;
+					break;
+				}
+				for(int e = reverse.begin(v), end = reverse.end(v); e < end; e++) {
+					int adj = reverse.target(e);
+					float newDistance = distances[v] + reverse.weight(e);
+					if(!settled[adj] && newDistance < distances[adj]) {
+						distances[adj] = newDistance;
+						next[adj] = v;
+						toVisit.add(adj, newDistance);
+					}
+				}
+			}
+			if(interrupted) { // Tentative distances are not shortest; keep none.
+				Arrays.fill(distances, Float.POSITIVE_INFINITY);
+				Arrays.fill(next, -1);
+			}
+			complete = !interrupted;
+		}
+
+		/**
+		 * Return the directions from a vertex to the destination, or
+		 * NO_DIRECTIONS if it cannot reach the destination.
+		 */
+		private Directions getRouteFrom(int v) {
+			if(distances[v] == Float.POSITIVE_INFINITY)
+				return Directions.NO_DIRECTIONS;
+			IntList route = new IntList();
+			for(; v != -1; v = next[v])
+				route.add(v);
+			int[] ids = route.toArray();
+			float[] along = new float[ids.length];
+			for(int i = 0; i < ids.length; i++) // Tree distances run to the destination.
+				along[i] = distances[ids[0]] - distances[ids[i]];
+			return new Directions(graph, ids, along);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package directions;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The shortest directions between two vertices together with alternative
+ * directions which are meaningfully different from them, for offering the
+ * driver a choice. Alternatives are ordered by length, shortest first.
+ * @author rohithrokkam
+ */
+public class RouteChoices {
+
+	/* The shortest directions, or NO_DIRECTIONS. */
+	private final Directions primary;
+
+	/* The alternative directions, shortest first. */
+	private final List<Directions> alternatives;
+
+	/**
+	 * Construct a set of route choices.
+	 * @param primary The shortest directions, or NO_DIRECTIONS.
+	 * @param alternatives The alternative directions, shortest first.
+	 */
+	RouteChoices(Directions primary, List<Directions> alternatives) {
+		this.primary = primary;
+		this.alternatives = Collections.unmodifiableList(alternatives);
+	}
+
+	/**
+	 * Return the shortest directions, or NO_DIRECTIONS if there is no route.
+	 * @return The shortest directions.
+	 */
+	public Directions primary() {
+		return primary;
+	}
+
+	/**
+	 * Return the alternative directions, shortest first. The list cannot be modified.
+	 * @return The alternative directions.
+	 */
+	public List<Directions> alternatives() {
+		return alternatives;
+	}
+
+	/**
+	 * Return a description of these route choices.
+	 * @return A description of these route choices.
+	 */
+	@Override
+	public String toString() {
+		return primary + " with " + alternatives.size() + " alternatives";
+	}
+}
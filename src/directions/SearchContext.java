@@ -0,0 +1,146 @@
+package directions;
+
+import java.util.Arrays;
+
+import data.CompactGraph;
+import data.IntHeap;
+
+/**
+ * The state of one Djikstra-style search over vertices with dense ids:
+ * tentative distances, predecessors, reached and settled marks, and the heap
+ * of vertices to visit. Strategies keep their graphs immutable and take a
+ * context from a pool for each query, so one strategy can answer queries from
+ * many threads at once. A context is reset in constant time between searches
+ * by bumping a search number instead of clearing its arrays.
+ * @author rohithrokkam
+ */
+class SearchContext {
+
+	/* The number of calls to isInterrupted() between looks at the thread. */
+	private static final int INTERRUPT_INTERVAL = 64;
+
+	/* The tentative distance of each vertex from the origin of the search. */
+	final float[] distances;
+
+	/* The id of the vertex preceding each vertex on its shortest route
+	   from the origin of the search, or -1 for the origin itself. */
+	final int[] predecessors;
+
+	/* The index of the edge by which each vertex was reached, for
+	   strategies whose edges carry more than their endpoints. */
+	final int[] edges;
+
+	/* The vertices marked for future visiting. */
+	final IntHeap toVisit;
+
+	/* The search in which each vertex was last reached. */
+	private final int[] reached;
+
+	/* The search in which each vertex was last settled. */
+	private final int[] settled;
+
+	/* The number of the current search. */
+	private int search;
+
+	/* The number of calls to isInterrupted() since it last looked at the thread. */
+	private int sinceCheck;
+
+	/**
+	 * Construct a search context for a graph.
+	 * @param size The number of vertices in the graph.
+	 */
+	SearchContext(int size) {
+		distances = new float[size];
+		predecessors = new int[size];
+		edges = new int[size];
+		reached = new int[size];
+		settled = new int[size];
+		toVisit = new IntHeap();
+		search = 0;
+	}
+
+	/**
+	 * Forget the previous search and begin a new one from the specified vertex.
+	 * @param origin The id of the vertex at which the search begins.
+	 * @param key The heap key of the origin.
+	 */
+	void begin(int origin, float key) {
+		if(search == Integer.MAX_VALUE) {
+			Arrays.fill(reached, 0);
+			Arrays.fill(settled, 0);
+			search = 0;
+		}
+		search++;
+		toVisit.clear();
+		reach(origin, 0F, -1, -1);
+		toVisit.add(origin, key);
+	}
+
+	/**
+	 * Record a tentative distance and predecessor for a vertex.
+	 */
+	void reach(int v, float distance, int predecessor, int edge) {
+		reached[v] = search;
+		distances[v] = distance;
+		predecessors[v] = predecessor;
+		edges[v] = edge;
+	}
+
+	/**
+	 * Return true if the vertex has been reached by the current search.
+	 */
+	boolean isReached(int v) {
+		return reached[v] == search;
+	}
+
+	/**
+	 * Mark a vertex as settled by the current search.
+	 * @return True if the vertex was newly settled, and false if it had
+	 * already been settled (the heap entry polled for it was stale).
+	 */
+	boolean settle(int v) {
+		if(settled[v] == search)
+			return false;
+		settled[v] = search;
+		return true;
+	}
+
+	/**
+	 * Return true if the vertex has been settled by the current search.
+	 */
+	boolean isSettled(int v) {
+		return settled[v] == search;
+	}
+
+	/**
+	 * Return true if the thread running the search has been interrupted, so
+	 * that a search whose result is no longer wanted can give up. Searches call
+	 * this for every vertex they settle; it looks at the thread only once every
+	 * INTERRUPT_INTERVAL calls. The interrupt status is left set, so the caller
+	 * of the search can tell a route it gave up on from one that does not exist.
+	 */
+	boolean isInterrupted() {
+		if(++sinceCheck < INTERRUPT_INTERVAL)
+			return false;
+		sinceCheck = 0;
+		return Thread.currentThread().isInterrupted();
+	}
+
+	/**
+	 * Return the directions from the origin of the current search to a vertex
+	 * it has reached, following predecessors, with the distances found by
+	 * the search.
+	 */
+	Directions routeTo(CompactGraph graph, int v) {
+		int length = 0;
+		for(int u = v; u != -1; u = predecessors[u])
+			length++;
+		int[] ids = new int[length];
+		float[] route = new float[length];
+		for(int u = v, i = length - 1; u != -1; u = predecessors[u], i--) {
+			ids[i] = u;
+			route[i] = distances[u];
+		}
+		return new Directions(graph, ids, route);
+	}
+}
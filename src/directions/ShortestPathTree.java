@@ -0,0 +1,130 @@
+package directions;
+
+import java.util.Arrays;
+
+import data.CompactGraph;
+import data.IntList;
+
+/**
+ * The shortest routes between one vertex, the root, and every vertex of a
+ * graph: routes from the root, or routes to the root when the tree was grown
+ * over the reverse graph. Each vertex holds its distance and the next vertex
+ * toward the root, by its id in the graph. Trees are immutable.
+ * @author rohithrokkam
+ */
+public class ShortestPathTree {
+
+	/* The graph which gives the vertices their ids. */
+	private final CompactGraph graph;
+
+	/* The id of the root. */
+	private final int root;
+
+	/* Whether routes run to the root rather than from it. */
+	private final boolean toRoot;
+
+	/* The distance between each vertex and the root, or Float.POSITIVE_INFINITY. */
+	private final float[] distances;
+
+	/* The id of the next vertex toward the root from each vertex, or -1. */
+	private final int[] parents;
+
+	/**
+	 * Construct a shortest-route tree.
+	 * @param graph The graph which gives the vertices their ids.
+	 * @param root The id of the root.
+	 * @param toRoot Whether routes run to the root rather than from it.
+	 * @param distances The distance between each vertex and the root.
+	 * @param parents The id of the next vertex toward the root from each vertex.
+	 */
+	ShortestPathTree(CompactGraph graph, int root, boolean toRoot, float[] distances,
+			int[] parents) {
+		this.graph = graph;
+		this.root = root;
+		this.toRoot = toRoot;
+		this.distances = distances;
+		this.parents = parents;
+	}
+
+	/**
+	 * Return the root of this tree.
+	 * @return The root of this tree.
+	 */
+	public Vertex root() {
+		return graph.vertex(root);
+	}
+
+	/**
+	 * Return true if routes run to the root, and false if they run from it.
+	 * @return True if routes run to the root.
+	 */
+	public boolean isToRoot() {
+		return toRoot;
+	}
+
+	/**
+	 * Return the length of the shortest route between a vertex and the root.
+	 * @param v The vertex whose distance is to be found.
+	 * @return The distance of the vertex, or Float.POSITIVE_INFINITY if there is
+	 * no route or the vertex is not in the graph.
+	 */
+	public float distance(Vertex v) {
+		int id = (v == null) ? -1 : graph.id(v);
+		return (id == -1) ? Float.POSITIVE_INFINITY : distances[id];
+	}
+
+	/**
+	 * Return a copy of the distance of every vertex, by its id in the graph.
+	 * @return The distance of every vertex.
+	 */
+	public float[] distances() {
+		return Arrays.copyOf(distances, distances.length);
+	}
+
+	/**
+	 * Return the directions of the shortest route between the root and a vertex,
+	 * in the direction of the tree.
+	 * @param v The vertex at the other end of the route from the root.
+	 * @return The directions between the root and the vertex, or NO_DIRECTIONS
+	 * if there is no route.
+	 */
+	public Directions directions(Vertex v) {
+		int id = (v == null) ? -1 : graph.id(v);
+		if(id == -1 || distances[id] == Float.POSITIVE_INFINITY)
+			return Directions.NO_DIRECTIONS;
+		IntList route = new IntList();
+		for(int u = id; u != -1; u = parents[u])
+			route.add(u);
+		if(!toRoot)
+			route.reverse();
+		int[] ids = route.toArray();
+		float[] along = new float[ids.length];
+		float total = distances[id];
+		for(int i = 0; i < ids.length; i++)
+			along[i] = toRoot ? total - distances[ids[i]] : distances[ids[i]];
+		return new Directions(graph, ids, along);
+	}
+
+	/**
+	 * Return every vertex whose route to or from the root is no longer than the
+	 * bound, nearest first.
+	 * @param bound The greatest length of a route.
+	 * @return The vertices within the bound of the root.
+	 */
+	public Isochrone within(float bound) {
+		long[] found = new long[distances.length];
+		int count = 0;
+		for(int v = 0; v < distances.length; v++) {
+			if(distances[v] <= bound) // Distances are non-negative, so their bits sort.
+				found[count++] = ((long) Float.floatToRawIntBits(distances[v]) << 32) | v;
+		}
+		Arrays.parallelSort(found, 0, count);
+		int[] ids = new int[count];
+		float[] within = new float[count];
+		for(int i = 0; i < count; i++) {
+			ids[i] = (int) found[i];
+			within[i] = distances[ids[i]];
+		}
+		return new Isochrone(graph, ids, within);
+	}
+}
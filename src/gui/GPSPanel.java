@@ -85,10 +85,10 @@ public class GPSPanel extends JPanel implements StateListener {
 				if(!state.getDrivingThere()) {
 					PixelCoordinates pc = new PixelCoordinates(e.getX(), e.getY());
 					if(SwingUtilities.isRightMouseButton(e)) {
-						state.setEnd((Node) state.getObjectAt(scaler.convertFrom(pc)));
+						state.setEnd(state.getNodeAt(scaler.convertFrom(pc)));
 						System.out.println("set end");
 					} else if (SwingUtilities.isLeftMouseButton(e)) {
-						state.setStart((Node) state.getObjectAt(scaler.convertFrom(pc)));
+						state.setStart(state.getNodeAt(scaler.convertFrom(pc)));
 					}
 				}
 			}
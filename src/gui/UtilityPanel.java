@@ -37,6 +37,9 @@ public class UtilityPanel extends JPanel implements StateListener {
 	/* String that indicates that no end location has been set. */
 	private final String NO_END_SET = "No end set";
 
+	/* The button which switches to the next alternative route. */
+	private JButton nextRouteButton;
+	
 	/*  The state information of the map to be drawn. */
 	private MapState state;
 	
@@ -85,6 +88,18 @@ public class UtilityPanel extends JPanel implements StateListener {
 		});
 		add(resetButton);
 
+		nextRouteButton = new JButton();
+		nextRouteButton.setText("Next Route");
+		nextRouteButton.setPreferredSize(new Dimension(getWidth(), 20));
+		nextRouteButton.setEnabled(false);
+		nextRouteButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				state.nextRoute();
+			}
+		});
+		add(nextRouteButton);
+
 		
 		startLabel = new JLabel();
 		startLabel.setText(NO_START_SET);
@@ -119,6 +134,7 @@ public class UtilityPanel extends JPanel implements StateListener {
 		
 		//request directions non-bad?
 		directionsPanel.displayDirections(state.getDirections());
+		nextRouteButton.setEnabled(!state.getAlternatives().isEmpty());
 		revalidate();
 	}
 }
\ No newline at end of file
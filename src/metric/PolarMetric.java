@@ -40,10 +40,12 @@ public class PolarMetric implements Metric<Spherical2DCoordinates, Float> {
 	 */
 	@Override
 	public Float distance(Spherical2DCoordinates first, Spherical2DCoordinates second) {
-		double deltaLatSq = Math.pow(radians(first.getLat() - second.getLat()), 2);
+		double deltaLat = radians(first.getLat() - second.getLat());
+		double deltaLatSq = deltaLat * deltaLat;
 		double deltaLon = radians(first.getLon() - second.getLon());
 		double latitudeAdjust = Math.cos((first.getLat() + second.getLat()/2));
-		double deltaLonSq = Math.pow(deltaLon * latitudeAdjust, 2);
+		double deltaLonAdjusted = deltaLon * latitudeAdjust;
+		double deltaLonSq = deltaLonAdjusted * deltaLonAdjusted;
 		float D = (float) Math.sqrt(deltaLatSq + deltaLonSq);
 		return D * EARTH_RADIUS;
 	}
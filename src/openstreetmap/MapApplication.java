@@ -7,11 +7,18 @@ import java.awt.Dimension;
 
 import com.starkeffect.highway.GPSDevice;
 
-import directions.Djikstra;
+import data.CompactGraph;
+import directions.AlternativeRoutes;
+import directions.CachingDirectionStrategy;
+import directions.Components;
+import directions.ContractionHierarchy;
+import directions.HierarchyDjikstra;
+import directions.ReachabilityCheckedStrategy;
+import directions.ReverseTreeDjikstra;
 import gui.GPSPanel;
 import gui.UtilityPanel;
 import main.FramedApplication;
-import parser.XMLParser;
+import parser.MappedOSMParser;
 import state.DirectionsGenerator;
 import state.MapState;
 import state.OnTrackChecker;
@@ -44,9 +51,7 @@ public class MapApplication extends FramedApplication {
 	@Override
 	protected void initialize(String[] args) {
 		String fileName = args[0];
-		XMLParser p = new XMLParser();
-		MapGenerator g = new MapGenerator(new XMLParser());
-		p.setGenerator(g);
+		MapGenerator g = new MapGenerator(new MappedOSMParser());
 		g.generate(fileName);
 		
 		MapState state = new MapState(g.map());
@@ -59,8 +64,15 @@ public class MapApplication extends FramedApplication {
 				FRAME_WIDTH - FRAME_HEIGHT, FRAME_HEIGHT);
 		UtilityPanel utilityPanel = new UtilityPanel(utilityPanelSize, state);
 		
+		// The graph is static once generated, so preprocess it once for fast queries.
+		CompactGraph graph = new CompactGraph(g.graph());
+		ContractionHierarchy hierarchy = new ContractionHierarchy(graph);
+		Components components = new Components(graph);
+		state.setRoutable(components::inLargest);
 		DirectionsGenerator directionsGenerator = 
-				new DirectionsGenerator(new Djikstra(g.graph()), state);
+				new DirectionsGenerator(new CachingDirectionStrategy(
+						new ReachabilityCheckedStrategy(new HierarchyDjikstra(hierarchy), components)),
+						new ReverseTreeDjikstra(graph), new AlternativeRoutes(graph), state);
 		OnTrackChecker onTrackChecker = new OnTrackChecker(state);
 		
 		GPSDevice gps = new GPSDevice(fileName);
@@ -2,6 +2,7 @@ package openstreetmap;
 
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -9,6 +10,7 @@ import java.util.Map;
 import coordinates.Spherical2DCoordinates;
 import data.IteratorGraph;
 import data.IteratorMap;
+import data.LongMap;
 import elements.Element;
 import parser.Generator;
 import parser.AbstractGenerator;
@@ -26,8 +28,13 @@ public class MapGenerator extends AbstractGenerator<String, Element> implements
 	/* Road elements which have been parsed. */
 	private Map<String, Element> elements;
 
-	/* Attributes of the element currently being parsed. */
-	private Map<String, String> attributes;
+	/* Nodes which have been parsed, by numeric id, for resolving references. */
+	private LongMap<Node> nodesById;
+
+	/* Id and location of the element currently being parsed. */
+	private long id;
+	private double lat;
+	private double lon;
 
 	/* Tags of the element currently being parsed. */
 	private Map<String, String> tags;
@@ -39,6 +46,9 @@ public class MapGenerator extends AbstractGenerator<String, Element> implements
 	/* Graph of adjacencies for the map to be returned. */
 	private Map<Element, List<Element>> graph;
 	
+	/* The graph returned by graph(), with its edge lengths computed once. */
+	private IteratorGraph<Element> weightedGraph;
+	
 	/* Bounds for this map, in OSM standard minlat-minlon-maxlat-maxlon form. */
 	private Rectangle2D bounds;
 
@@ -50,7 +60,7 @@ public class MapGenerator extends AbstractGenerator<String, Element> implements
 		super(parser);
 		parser.setGenerator(this);
 		elements = new HashMap<String, Element>();
-		attributes = new HashMap<String, String>();
+		nodesById = new LongMap<Node>();
 		tags = new HashMap<String, String>();
 		members = new ArrayList<Element>();
 		nds = new ArrayList<Node>();
@@ -77,11 +87,14 @@ public class MapGenerator extends AbstractGenerator<String, Element> implements
 	 * Return a graph representation of the connections between elements
 	 * (in this case, entirely nodes) of the provided map.
 	 * @return A graph representation of the connections between elements
-	 * of the provided map.
+	 * of the provided map. The graph is built on the first call, after the
+	 * map has been generated, and shared afterwards.
 	 */
 	@Override
 	public IteratorGraph<Element> graph() {
-		return new IteratorGraph<Element>(graph);
+		if(weightedGraph == null)
+			weightedGraph = new IteratorGraph<Element>(graph);
+		return weightedGraph;
 	}
 
 	/**
@@ -93,30 +106,95 @@ public class MapGenerator extends AbstractGenerator<String, Element> implements
 	@Override
 	public void startElement(String type, HashMap<String, String> atts) {
 		switch (type) {
-		// Set attributes for a primitive element.
-		case "way":
 		case "node":
+			startNode(Long.parseLong(atts.get("id")), Double.parseDouble(atts.get("lat")),
+					Double.parseDouble(atts.get("lon")));
+			break;
+		case "way":
+			startWay(Long.parseLong(atts.get("id")));
+			break;
 		case "relation":
+			startRelation(Long.parseLong(atts.get("id")));
+			break;
 		case "bound":
 		case "bounds":
-			clear(); // Primitives can't be nested, so clear previous info.
-			attributes = atts;
+			startBounds(Double.parseDouble(atts.get("minlat")), Double.parseDouble(atts.get("minlon")),
+					Double.parseDouble(atts.get("maxlat")), Double.parseDouble(atts.get("maxlon")));
 			break;
-		// Set attributes for a sub-element.
 		case "nd":
-			String nodeID = "n" + atts.get("ref");
-			nds.add((Node) elements.get(nodeID));
+			nd(Long.parseLong(atts.get("ref")));
 			break;
 		case "member":
-			String memberID = atts.get("type").substring(0, 1) + atts.get("ref");
-			members.add(elements.get(memberID));
+			member(atts.get("type"), Long.parseLong(atts.get("ref")), atts.get("role"));
 			break;
-		// Set a tag.
 		case "tag":
-			tags.put(atts.get("k"), atts.get("v"));
+			tag(atts.get("k"), atts.get("v"));
 			break;
 		}
 	}
+
+	/**
+	 * Begin a node. Primitives can't be nested, so previous info is cleared.
+	 */
+	@Override
+	public void startNode(long id, double lat, double lon) {
+		clear();
+		this.id = id;
+		this.lat = lat;
+		this.lon = lon;
+	}
+
+	/**
+	 * Begin a way.
+	 */
+	@Override
+	public void startWay(long id) {
+		clear();
+		this.id = id;
+	}
+
+	/**
+	 * Begin a relation.
+	 */
+	@Override
+	public void startRelation(long id) {
+		clear();
+		this.id = id;
+	}
+
+	/**
+	 * Set the bounds of the map.
+	 */
+	@Override
+	public void startBounds(double minlat, double minlon, double maxlat, double maxlon) {
+		clear();
+		bounds = new Rectangle2D.Float((float) minlon, (float) minlat,
+				(float) (maxlon - minlon), (float) (maxlat - minlat));
+	}
+
+	/**
+	 * Add a node to the way being parsed.
+	 */
+	@Override
+	public void nd(long ref) {
+		nds.add(nodesById.get(ref));
+	}
+
+	/**
+	 * Add a member to the relation being parsed.
+	 */
+	@Override
+	public void member(String type, long ref, String role) {
+		members.add(elements.get(type.substring(0, 1) + ref));
+	}
+
+	/**
+	 * Set a tag of the element being parsed.
+	 */
+	@Override
+	public void tag(String key, String value) {
+		tags.put(key, value);
+	}
 	
 	/**
 	 * Method called by the XMLParser when it encounters the end of an element.
@@ -126,7 +204,6 @@ public class MapGenerator extends AbstractGenerator<String, Element> implements
 	 */
 	@Override
 	public void endElement(String type) {
-		String id = attributes.get("id");
 		// Add letter to the start of the hash to avoid collisions.
 		switch (type) {
 		case "node":
@@ -138,10 +215,6 @@ public class MapGenerator extends AbstractGenerator<String, Element> implements
 		case "relation":
 			makeRelation("r" + id);
 			break;
-		case "bound":
-		case "bounds":
-			makeBounds();
-			break;
 		} // Else, do nothing.
 	}
 
@@ -149,17 +222,17 @@ public class MapGenerator extends AbstractGenerator<String, Element> implements
 	 * Add a node to the element list.
 	 */
 	private void makeNode(String id) {
-		Spherical2DCoordinates sc = new Spherical2DCoordinates(
-				Float.valueOf(attributes.get("lon")),
-				Float.valueOf(attributes.get("lat")));
-		HashMap<String, String> nodeTags = new HashMap<String, String>(tags);
+		Spherical2DCoordinates sc = new Spherical2DCoordinates((float) lon, (float) lat);
+		Map<String, String> nodeTags = copyTags();
 		Node node;
 		if(tags.get("place") != null) 
 			node = new PlaceNode(id, nodeTags, sc);
 		else
 			node = new Node(id, nodeTags, sc);
 		elements.put(id, node);
+		nodesById.put(this.id, node);
 		graph.put(node, new ArrayList<Element>(2));
+		weightedGraph = null;
 	}
 
 	/**
@@ -167,7 +240,7 @@ public class MapGenerator extends AbstractGenerator<String, Element> implements
 	 */
 	private void makeWay(String id) {
 		Way way;
-		HashMap<String, String> wayTags = new HashMap<String, String>(tags);
+		Map<String, String> wayTags = copyTags();
 		ArrayList<Node> nodes = new ArrayList<Node>(nds);
 		
 		if ("yes".equals(tags.get("building"))) {
@@ -175,14 +248,26 @@ public class MapGenerator extends AbstractGenerator<String, Element> implements
 			elements.put(id, way);
 		} else if (tags.get("highway") != null) { // The road is drivable.
 			switch (tags.get("highway")) {
+			case "motorway":
+			case "motorway_link":
+			case "trunk":
+			case "trunk_link":
 			case "primary":
+			case "primary_link":
 			case "secondary":
+			case "secondary_link":
 				way = new HighWay(id, wayTags, nodes);
 				elements.put(id, way);
+				break;
 			case "tertiary":
+			case "tertiary_link":
 			case "residential":
+			case "unclassified":
+			case "living_street":
+			case "service":
 				way = new LocalWay(id, wayTags, nodes);
 				elements.put(id, way);
+				break;
 			}
 		} else {
 			// Default case:
@@ -200,34 +285,33 @@ public class MapGenerator extends AbstractGenerator<String, Element> implements
 				graph.get(nextVertex).add(prevVertex);
 			prevVertex = nextVertex;
 		}
+		weightedGraph = null;
 	}
 
 	/**
 	 * Add a relation to the element list.
 	 */
 	private void makeRelation(String id) {
-		Relation relation = new Relation(id, new HashMap<String, String>(tags),
+		Relation relation = new Relation(id, copyTags(),
 				new ArrayList<Element>(members));
 		elements.put(id, relation);
 		// Don't add relations to graphs.
 	}
 
 	/**
-	 * Add bounds to the element list.
+	 * Return the tags of the element being parsed, as a map of its own. Most
+	 * nodes have no tags, so they share one empty map.
 	 */
-	private void makeBounds() {
-		float minlat = Float.valueOf(attributes.get("minlat"));
-		float minlon = Float.valueOf(attributes.get("minlon"));
-		float maxlat = Float.valueOf(attributes.get("maxlat"));
-		float maxlon = Float.valueOf(attributes.get("maxlon"));
-		bounds = new Rectangle2D.Float(minlon, minlat, maxlon - minlon, maxlat - minlat);
+	private Map<String, String> copyTags() {
+		if(tags.isEmpty())
+			return Collections.emptyMap();
+		return new HashMap<String, String>(tags);
 	}
 
 	/**
 	 * Clears data for the next element to be generated.
 	 */
 	private void clear() {
-		attributes.clear();
 		tags.clear();
 		nds.clear();
 		members.clear();
@@ -5,6 +5,13 @@ import java.util.HashMap;
 /**
  * Interface whose implementers can generate elements by taking
  * type and attribute information about elements.
+ *
+ * Parsers may report the OSM elements through the primitive callbacks
+ * (startNode(), nd(), tag() and the rest), which pass ids and coordinates as
+ * numbers and need no attribute map, and report any other element through
+ * startElement(). Either way, endElement() is called at the end of every
+ * element. By default each primitive callback builds the attribute map and
+ * calls startElement(), so a generator need only implement the form it uses.
  * @author rohithrokkam
  */
 public interface Generator {
@@ -17,6 +24,92 @@ public interface Generator {
 	default void startElement(String type, HashMap<String, String> attributes) {
 	}
 
+	/**
+	 * Method called by a parser when it encounters the beginning of a node.
+	 * @param id The id of the node.
+	 * @param lat The latitude of the node.
+	 * @param lon The longitude of the node.
+	 */
+	default void startNode(long id, double lat, double lon) {
+		HashMap<String, String> attributes = new HashMap<String, String>();
+		attributes.put("id", Long.toString(id));
+		attributes.put("lat", Double.toString(lat));
+		attributes.put("lon", Double.toString(lon));
+		startElement("node", attributes);
+	}
+
+	/**
+	 * Method called by a parser when it encounters the beginning of a way.
+	 * @param id The id of the way.
+	 */
+	default void startWay(long id) {
+		HashMap<String, String> attributes = new HashMap<String, String>();
+		attributes.put("id", Long.toString(id));
+		startElement("way", attributes);
+	}
+
+	/**
+	 * Method called by a parser when it encounters the beginning of a relation.
+	 * @param id The id of the relation.
+	 */
+	default void startRelation(long id) {
+		HashMap<String, String> attributes = new HashMap<String, String>();
+		attributes.put("id", Long.toString(id));
+		startElement("relation", attributes);
+	}
+
+	/**
+	 * Method called by a parser when it encounters the bounds of the map.
+	 * @param minlat The southern edge of the map.
+	 * @param minlon The western edge of the map.
+	 * @param maxlat The northern edge of the map.
+	 * @param maxlon The eastern edge of the map.
+	 */
+	default void startBounds(double minlat, double minlon, double maxlat, double maxlon) {
+		HashMap<String, String> attributes = new HashMap<String, String>();
+		attributes.put("minlat", Double.toString(minlat));
+		attributes.put("minlon", Double.toString(minlon));
+		attributes.put("maxlat", Double.toString(maxlat));
+		attributes.put("maxlon", Double.toString(maxlon));
+		startElement("bounds", attributes);
+	}
+
+	/**
+	 * Method called by a parser when it encounters a node reference of a way.
+	 * @param ref The id of the node referred to.
+	 */
+	default void nd(long ref) {
+		HashMap<String, String> attributes = new HashMap<String, String>();
+		attributes.put("ref", Long.toString(ref));
+		startElement("nd", attributes);
+	}
+
+	/**
+	 * Method called by a parser when it encounters a member of a relation.
+	 * @param type The type of the member: node, way or relation.
+	 * @param ref The id of the member.
+	 * @param role The role of the member, possibly empty.
+	 */
+	default void member(String type, long ref, String role) {
+		HashMap<String, String> attributes = new HashMap<String, String>();
+		attributes.put("type", type);
+		attributes.put("ref", Long.toString(ref));
+		attributes.put("role", role);
+		startElement("member", attributes);
+	}
+
+	/**
+	 * Method called by a parser when it encounters a tag of an element.
+	 * @param key The key of the tag.
+	 * @param value The value of the tag.
+	 */
+	default void tag(String key, String value) {
+		HashMap<String, String> attributes = new HashMap<String, String>();
+		attributes.put("k", key);
+		attributes.put("v", value);
+		startElement("tag", attributes);
+	}
+
 	/**
 	 * Method called by a parser when it encounters the end of
 	 * an element. Adds the finished element to the list of elements
@@ -0,0 +1,597 @@
+package parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Parser for OpenStreetMap XML files which memory-maps the file and tokenizes
+ * its markup straight from the mapped bytes. Unlike XMLParser and StAXParser,
+ * this parser knows the fixed shape of OSM files: elements with attributes and
+ * no text. Ids and coordinates are parsed in place and reported through the
+ * primitive callbacks of the generator; attributes the generator is not given,
+ * such as user and timestamp, are skipped without being decoded. Tag keys are
+ * decoded once per distinct key. Elements other than the OSM ones are reported
+ * with an attribute map.
+ *
+ * Files are read as UTF-8. Comments, processing instructions and declarations
+ * are skipped, as is any text between elements; the character references and
+ * the five predefined entities are decoded in attribute values. Files larger
+ * than one mapping are read through a window which moves along the file,
+ * so no markup may be longer than the window.
+ */
+public class MappedOSMParser extends Parser {
+
+	/* The largest part of the file mapped at once. */
+	private static final long WINDOW_SIZE = 1L << 30;
+
+	/* The most distinct tag keys kept decoded, to bound memory on odd files. */
+	private static final int MAX_KEYS = 1 << 12;
+
+	/* Names of the elements and attributes read by this parser. */
+	private static final byte[] NODE = bytes("node");
+	private static final byte[] WAY = bytes("way");
+	private static final byte[] RELATION = bytes("relation");
+	private static final byte[] ND = bytes("nd");
+	private static final byte[] TAG = bytes("tag");
+	private static final byte[] MEMBER = bytes("member");
+	private static final byte[] BOUNDS = bytes("bounds");
+	private static final byte[] BOUND = bytes("bound");
+	private static final byte[] ID = bytes("id");
+	private static final byte[] LAT = bytes("lat");
+	private static final byte[] LON = bytes("lon");
+	private static final byte[] REF = bytes("ref");
+	private static final byte[] K = bytes("k");
+	private static final byte[] V = bytes("v");
+	private static final byte[] TYPE = bytes("type");
+	private static final byte[] ROLE = bytes("role");
+	private static final byte[] MINLAT = bytes("minlat");
+	private static final byte[] MINLON = bytes("minlon");
+	private static final byte[] MAXLAT = bytes("maxlat");
+	private static final byte[] MAXLON = bytes("maxlon");
+
+	/* The powers of ten which doubles hold exactly. */
+	private static final double[] POWERS_OF_TEN = new double[23];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for(int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+	}
+
+	/* Thrown when markup runs past the end of the window, so the window can
+	   be moved to its start and the markup read again. */
+	@SuppressWarnings("serial")
+	private static final IOException PAST_WINDOW = new IOException("markup past window") {
+		@Override
+		public synchronized Throwable fillInStackTrace() {
+			return this;
+		}
+	};
+
+	/* The file being parsed, its length, and the part of it which is mapped. */
+	private FileChannel channel;
+	private long length;
+	private MappedByteBuffer buffer;
+
+	/* The offset in the file of the mapped part, and the length of the mapped part. */
+	private long base;
+	private int limit;
+
+	/* The spans of the attribute names and values of the current element,
+	   relative to the mapped part. */
+	private int[] names = new int[32];
+	private int[] values = new int[32];
+	private int attributes;
+
+	/* Bytes of the string being decoded. */
+	private byte[] scratch = new byte[256];
+
+	/* The decoded tag keys, by their bytes. */
+	private final HashMap<ByteKey, String> keys = new HashMap<ByteKey, String>();
+
+	/* A reusable key for looking up tag keys by the bytes of the current tag. */
+	private final ByteKey probe = new ByteKey();
+
+	/**
+	 * Parse an OpenStreetMap XML file, making calls to the generator as
+	 * elements are read.
+	 */
+	@Override
+	public void parse(File file) throws IOException {
+		Generator generator = generator();
+		try(FileChannel opened = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			channel = opened;
+			length = channel.size();
+			map(0);
+			generator.startGeneration();
+			int position = 0;
+			while(true) {
+				position = next(position);
+				if(position == -1)
+					break;
+				try {
+					position = markup(position, generator);
+				} catch (IOException e) {
+					if(e != PAST_WINDOW)
+						throw e;
+					position = remap(position);
+				}
+			}
+			generator.endGeneration();
+		} catch (NumberFormatException e) {
+			throw new IOException(file.getName() + ": " + e.getMessage(), e);
+		} finally {
+			channel = null;
+			buffer = null;
+			keys.clear();
+		}
+	}
+
+	/**
+	 * Map the part of the file which starts at an offset.
+	 */
+	private void map(long offset) throws IOException {
+		base = offset;
+		limit = (int) Math.min(WINDOW_SIZE, length - offset);
+		buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, limit);
+	}
+
+	/**
+	 * Move the window to start at a position in it, which is the start of
+	 * markup that ran past its end, and return the position in the new window.
+	 */
+	private int remap(int position) throws IOException {
+		if(position == 0)
+			throw new IOException("markup at byte " + base + " is longer than "
+					+ WINDOW_SIZE + " bytes");
+		map(base + position);
+		return 0;
+	}
+
+	/**
+	 * Return the byte at a position, or throw PAST_WINDOW at the end of a
+	 * window which is not the end of the file.
+	 * @throws IOException at the end of the file, or PAST_WINDOW.
+	 */
+	private byte at(int position) throws IOException {
+		if(position >= limit) {
+			if(base + limit < length)
+				throw PAST_WINDOW;
+			throw new IOException("file ends inside markup");
+		}
+		return buffer.get(position);
+	}
+
+	/**
+	 * Return the position of the next '<', moving the window along the file if
+	 * need be, or -1 at the end of the file.
+	 */
+	private int next(int position) throws IOException {
+		while(true) {
+			for(; position < limit; position++) {
+				if(buffer.get(position) == '<')
+					return position;
+			}
+			if(base + limit >= length)
+				return -1;
+			map(base + limit);
+			position = 0;
+		}
+	}
+
+	/**
+	 * Read the markup which starts at a position, report it to the generator,
+	 * and return the position after it.
+	 */
+	private int markup(int position, Generator generator) throws IOException {
+		byte first = at(position + 1);
+		if(first == '?')
+			return skipPast(position + 2, "?>");
+		if(first == '!') {
+			if(at(position + 2) == '-' && at(position + 3) == '-')
+				return skipPast(position + 4, "-->");
+			if(at(position + 2) == '[')
+				return skipPast(position + 2, "]]>"); // CDATA.
+			return skipPast(position + 2, ">");
+		}
+		if(first == '/') {
+			int start = position + 2;
+			int end = nameEnd(start);
+			int close = skipSpace(end);
+			if(at(close) != '>')
+				throw new IOException("malformed end tag at byte " + (base + position));
+			generator.endElement(elementName(start, end));
+			return close + 1;
+		}
+
+		// A start tag: read the spans of its attributes, then report it.
+		int start = position + 1;
+		int end = nameEnd(start);
+		attributes = 0;
+		int i = end;
+		boolean empty;
+		while(true) {
+			i = skipSpace(i);
+			byte b = at(i);
+			if(b == '>') {
+				empty = false;
+				i++;
+				break;
+			}
+			if(b == '/' && at(i + 1) == '>') {
+				empty = true;
+				i += 2;
+				break;
+			}
+			int nameStart = i;
+			int nameEnd = nameEnd(i);
+			i = skipSpace(nameEnd);
+			if(nameEnd == nameStart || at(i) != '=')
+				throw new IOException("malformed attribute at byte " + (base + nameStart));
+			i = skipSpace(i + 1);
+			byte quote = at(i);
+			if(quote != '"' && quote != '\'')
+				throw new IOException("unquoted attribute at byte " + (base + i));
+			int valueStart = ++i;
+			while(at(i) != quote)
+				i++;
+			addAttribute(nameStart, nameEnd, valueStart, i);
+			i++;
+		}
+		String type = elementName(start, end);
+		startElement(type, start, end, generator);
+		if(empty)
+			generator.endElement(type);
+		return i;
+	}
+
+	/**
+	 * Report the start of an element, whose attributes have been read, to the generator.
+	 */
+	private void startElement(String type, int start, int end, Generator generator) throws IOException {
+		if(matches(start, end, NODE)) {
+			generator.startNode(parseLong(ID), parseDouble(LAT), parseDouble(LON));
+		} else if(matches(start, end, ND)) {
+			generator.nd(parseLong(REF));
+		} else if(matches(start, end, TAG)) {
+			generator.tag(key(value(K)), decode(value(V), valueEnd(V)));
+		} else if(matches(start, end, WAY)) {
+			generator.startWay(parseLong(ID));
+		} else if(matches(start, end, MEMBER)) {
+			int role = find(ROLE);
+			generator.member(elementName(value(TYPE), valueEnd(TYPE)), parseLong(REF),
+					(role == -1) ? "" : decode(values[2 * role], values[2 * role + 1]));
+		} else if(matches(start, end, RELATION)) {
+			generator.startRelation(parseLong(ID));
+		} else if((matches(start, end, BOUNDS) || matches(start, end, BOUND)) && find(MINLAT) != -1) {
+			generator.startBounds(parseDouble(MINLAT), parseDouble(MINLON),
+					parseDouble(MAXLAT), parseDouble(MAXLON));
+		} else {
+			HashMap<String, String> map = new HashMap<String, String>();
+			for(int a = 0; a < attributes; a++)
+				map.put(decode(names[2 * a], names[2 * a + 1]), decode(values[2 * a], values[2 * a + 1]));
+			generator.startElement(type, map);
+		}
+	}
+
+	/**
+	 * Record the spans of the name and value of an attribute of the current element.
+	 */
+	private void addAttribute(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+		if(2 * attributes == names.length) {
+			names = Arrays.copyOf(names, names.length * 2);
+			values = Arrays.copyOf(values, values.length * 2);
+		}
+		names[2 * attributes] = nameStart;
+		names[2 * attributes + 1] = nameEnd;
+		values[2 * attributes] = valueStart;
+		values[2 * attributes + 1] = valueEnd;
+		attributes++;
+	}
+
+	/**
+	 * Return the index of the attribute of the current element with a name, or -1.
+	 */
+	private int find(byte[] name) {
+		for(int a = 0; a < attributes; a++) {
+			if(matches(names[2 * a], names[2 * a + 1], name))
+				return a;
+		}
+		return -1;
+	}
+
+	/**
+	 * Return the start of the value of an attribute of the current element.
+	 * @throws NumberFormatException if the element has no such attribute.
+	 */
+	private int value(byte[] name) {
+		int a = find(name);
+		if(a == -1)
+			throw new NumberFormatException("element at byte " + base + " has no "
+					+ new String(name, StandardCharsets.US_ASCII));
+		return values[2 * a];
+	}
+
+	/**
+	 * Return the end of the value of an attribute of the current element.
+	 */
+	private int valueEnd(byte[] name) {
+		return values[2 * find(name) + 1];
+	}
+
+	/**
+	 * Return the value of an attribute of the current element as a long,
+	 * parsed from the mapped bytes.
+	 */
+	private long parseLong(byte[] name) {
+		int start = value(name);
+		int end = values[2 * find(name) + 1];
+		int i = start;
+		boolean negative = (i < end && buffer.get(i) == '-');
+		if(negative)
+			i++;
+		if(i == end || end - i > 18) // Empty, or too many digits to add up safely.
+			return Long.parseLong(decode(start, end));
+		long result = 0;
+		for(; i < end; i++) {
+			int digit = buffer.get(i) - '0';
+			if(digit < 0 || digit > 9)
+				return Long.parseLong(decode(start, end)); // Throws with the value.
+			result = result * 10 + digit;
+		}
+		return negative ? -result : result;
+	}
+
+	/**
+	 * Return the value of an attribute of the current element as a double,
+	 * parsed from the mapped bytes. Plain decimals with few enough digits are
+	 * parsed exactly, as one correctly rounded division of two exact doubles;
+	 * anything else is left to Double.parseDouble().
+	 */
+	private double parseDouble(byte[] name) {
+		int start = value(name);
+		int end = values[2 * find(name) + 1];
+		int i = start;
+		boolean negative = (i < end && buffer.get(i) == '-');
+		if(negative || (i < end && buffer.get(i) == '+'))
+			i++;
+		long mantissa = 0;
+		boolean any = false; // Whether there is any digit.
+		int digits = 0; // Significant digits.
+		int scale = -1; // Digits after the point, or -1 before it.
+		for(; i < end; i++) {
+			byte b = buffer.get(i);
+			if(b == '.' && scale == -1) {
+				scale = 0;
+				continue;
+			}
+			int digit = b - '0';
+			if(digit < 0 || digit > 9 || digits == 15)
+				return Double.parseDouble(decode(start, end));
+			mantissa = mantissa * 10 + digit;
+			any = true;
+			if(mantissa != 0)
+				digits++;
+			if(scale != -1)
+				scale++;
+		}
+		if(scale == -1)
+			scale = 0;
+		if(!any || scale >= POWERS_OF_TEN.length)
+			return Double.parseDouble(decode(start, end));
+		double result = mantissa / POWERS_OF_TEN[scale];
+		return negative ? -result : result;
+	}
+
+	/**
+	 * Return a tag key which starts at a position in the mapped part, decoding
+	 * it only the first time it is seen.
+	 */
+	private String key(int start) {
+		int end = valueEnd(K);
+		probe.set(buffer, start, end);
+		String key = keys.get(probe);
+		if(key == null) {
+			key = decode(start, end);
+			if(keys.size() < MAX_KEYS)
+				keys.put(probe.copy(), key);
+		}
+		return key;
+	}
+
+	/**
+	 * Decode the UTF-8 bytes between two positions of the mapped part, with
+	 * any entity and character references replaced.
+	 */
+	private String decode(int start, int end) {
+		if(end - start > scratch.length)
+			scratch = new byte[Math.max(end - start, 2 * scratch.length)];
+		boolean plain = true; // Whether the bytes are ASCII with no references.
+		for(int i = start; i < end; i++) {
+			byte b = buffer.get(i);
+			scratch[i - start] = b;
+			if(b < 0 || b == '&')
+				plain = false;
+		}
+		if(plain)
+			return new String(scratch, 0, end - start, StandardCharsets.ISO_8859_1);
+		String raw = new String(scratch, 0, end - start, StandardCharsets.UTF_8);
+		return (raw.indexOf('&') == -1) ? raw : unescape(raw);
+	}
+
+	/**
+	 * Replace the entity and character references in an attribute value.
+	 */
+	private static String unescape(String raw) {
+		StringBuilder sb = new StringBuilder(raw.length());
+		for(int i = 0; i < raw.length(); i++) {
+			char c = raw.charAt(i);
+			int semicolon = (c == '&') ? raw.indexOf(';', i) : -1;
+			if(semicolon == -1) {
+				sb.append(c);
+				continue;
+			}
+			String entity = raw.substring(i + 1, semicolon);
+			switch(entity) {
+			case "amp": sb.append('&'); break;
+			case "lt": sb.append('<'); break;
+			case "gt": sb.append('>'); break;
+			case "quot": sb.append('"'); break;
+			case "apos": sb.append('\''); break;
+			default:
+				if(entity.startsWith("#x"))
+					sb.appendCodePoint(Integer.parseInt(entity.substring(2), 16));
+				else if(entity.startsWith("#"))
+					sb.appendCodePoint(Integer.parseInt(entity.substring(1)));
+				else
+					throw new NumberFormatException("unknown entity &" + entity + ";");
+			}
+			i = semicolon;
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Return the name of an element or member type, which is a constant for
+	 * the OSM elements.
+	 */
+	private String elementName(int start, int end) {
+		if(matches(start, end, NODE))
+			return "node";
+		if(matches(start, end, ND))
+			return "nd";
+		if(matches(start, end, TAG))
+			return "tag";
+		if(matches(start, end, WAY))
+			return "way";
+		if(matches(start, end, MEMBER))
+			return "member";
+		if(matches(start, end, RELATION))
+			return "relation";
+		return decode(start, end);
+	}
+
+	/**
+	 * Return true if the bytes between two positions of the mapped part are a name.
+	 */
+	private boolean matches(int start, int end, byte[] name) {
+		if(end - start != name.length)
+			return false;
+		for(int i = 0; i < name.length; i++) {
+			if(buffer.get(start + i) != name[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Return the position after the name which starts at a position.
+	 */
+	private int nameEnd(int position) throws IOException {
+		while(true) {
+			byte b = at(position);
+			if(b == '>' || b == '/' || b == '=' || isSpace(b))
+				return position;
+			position++;
+		}
+	}
+
+	/**
+	 * Return the first position from a position which is not white space.
+	 */
+	private int skipSpace(int position) throws IOException {
+		while(isSpace(at(position)))
+			position++;
+		return position;
+	}
+
+	/**
+	 * Return the position after the first occurrence of a terminator from a position.
+	 */
+	private int skipPast(int position, String terminator) throws IOException {
+		byte[] bytes = bytes(terminator);
+		for(int i = position; ; i++) {
+			int j = 0;
+			while(j < bytes.length && at(i + j) == bytes[j])
+				j++;
+			if(j == bytes.length)
+				return i + j;
+		}
+	}
+
+	/**
+	 * Return true if a byte is XML white space.
+	 */
+	private static boolean isSpace(byte b) {
+		return b == ' ' || b == '\n' || b == '\t' || b == '\r';
+	}
+
+	/**
+	 * Return the ASCII bytes of a name.
+	 */
+	private static byte[] bytes(String name) {
+		return name.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * The bytes of a tag key, as a hash key. A probe refers to bytes of the
+	 * mapped part; a copy holds bytes of its own.
+	 */
+	private static class ByteKey {
+
+		/* The bytes of the key, and its hash code. */
+		private byte[] bytes = new byte[64];
+		private int length;
+		private int hash;
+
+		/**
+		 * Refer this key to the bytes between two positions of a buffer.
+		 */
+		private void set(MappedByteBuffer buffer, int start, int end) {
+			length = end - start;
+			if(length > bytes.length)
+				bytes = new byte[Math.max(length, 2 * bytes.length)];
+			int h = 1;
+			for(int i = 0; i < length; i++) {
+				bytes[i] = buffer.get(start + i);
+				h = 31 * h + bytes[i];
+			}
+			hash = h;
+		}
+
+		/**
+		 * Return a key which holds a copy of the bytes of this one.
+		 */
+		private ByteKey copy() {
+			ByteKey copy = new ByteKey();
+			copy.bytes = Arrays.copyOf(bytes, length);
+			copy.length = length;
+			copy.hash = hash;
+			return copy;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if(!(other instanceof ByteKey))
+				return false;
+			ByteKey key = (ByteKey) other;
+			if(key.length != length || key.hash != hash)
+				return false;
+			for(int i = 0; i < length; i++) {
+				if(key.bytes[i] != bytes[i])
+					return false;
+			}
+			return true;
+		}
+	}
+}
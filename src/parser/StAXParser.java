@@ -0,0 +1,157 @@
+package parser;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Pull parser for OpenStreetMap XML files. Unlike XMLParser, which copies the
+ * attributes of every element into a new map, this parser reads the attributes
+ * of OSM elements in place and reports them through the primitive callbacks
+ * of the generator: ids as longs, coordinates as doubles, and tags as a key and
+ * a value. Only elements it does not know are reported with an attribute map.
+ *
+ * Tag keys repeat throughout a file, so each distinct key is kept once and
+ * shared by every tag that uses it.
+ */
+public class StAXParser extends Parser {
+
+	/* The size of the buffer between the file and the XML reader. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/* The single instance of each tag key seen by the current parse. */
+	private final HashMap<String, String> keys = new HashMap<String, String>();
+
+	/**
+	 * Parse an OpenStreetMap XML file, making calls to the generator as
+	 * elements are read.
+	 */
+	@Override
+	public void parse(File file) throws IOException {
+		try(InputStream stream = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+			parse(stream);
+		}
+	}
+
+	/**
+	 * Parse an OpenStreetMap XML stream, making calls to the generator as
+	 * elements are read. The stream is not closed.
+	 */
+	public void parse(InputStream stream) throws IOException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+		Generator generator = generator();
+		keys.clear();
+		try {
+			XMLStreamReader reader = factory.createXMLStreamReader(stream);
+			try {
+				generator.startGeneration();
+				while(reader.hasNext()) {
+					switch(reader.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						startElement(reader, generator);
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						generator.endElement(reader.getLocalName());
+						break;
+					}
+				}
+				generator.endGeneration();
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException | NumberFormatException e) {
+			throw new IOException(e);
+		} finally {
+			keys.clear();
+		}
+	}
+
+	/**
+	 * Report the element at which the reader stands to the generator.
+	 */
+	private void startElement(XMLStreamReader reader, Generator generator) {
+		String type = reader.getLocalName();
+		switch(type) {
+		case "node":
+			generator.startNode(parseLong(reader, "id"), parseDouble(reader, "lat"),
+					parseDouble(reader, "lon"));
+			break;
+		case "way":
+			generator.startWay(parseLong(reader, "id"));
+			break;
+		case "relation":
+			generator.startRelation(parseLong(reader, "id"));
+			break;
+		case "nd":
+			generator.nd(parseLong(reader, "ref"));
+			break;
+		case "tag":
+			String key = attribute(reader, "k");
+			String shared = keys.putIfAbsent(key, key);
+			generator.tag((shared == null) ? key : shared, attribute(reader, "v"));
+			break;
+		case "member":
+			String role = reader.getAttributeValue(null, "role");
+			generator.member(attribute(reader, "type"), parseLong(reader, "ref"),
+					(role == null) ? "" : role);
+			break;
+		case "bound":
+		case "bounds":
+			if(reader.getAttributeValue(null, "minlat") != null)
+				generator.startBounds(parseDouble(reader, "minlat"), parseDouble(reader, "minlon"),
+						parseDouble(reader, "maxlat"), parseDouble(reader, "maxlon"));
+			else // An old-style bound with a box; pass on its attributes.
+				generator.startElement(type, attributes(reader));
+			break;
+		default:
+			generator.startElement(type, attributes(reader));
+			break;
+		}
+	}
+
+	/**
+	 * Return the attributes of the current element as a new map.
+	 */
+	private static HashMap<String, String> attributes(XMLStreamReader reader) {
+		HashMap<String, String> attributes = new HashMap<String, String>();
+		for(int i = 0; i < reader.getAttributeCount(); i++)
+			attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+		return attributes;
+	}
+
+	/**
+	 * Return the value of an attribute of the current element.
+	 * @throws NumberFormatException if the element has no such attribute.
+	 */
+	private static String attribute(XMLStreamReader reader, String name) {
+		String value = reader.getAttributeValue(null, name);
+		if(value == null)
+			throw new NumberFormatException("<" + reader.getLocalName() + "> at line "
+					+ reader.getLocation().getLineNumber() + " has no " + name);
+		return value;
+	}
+
+	/**
+	 * Return the value of an attribute of the current element as a long.
+	 */
+	private static long parseLong(XMLStreamReader reader, String name) {
+		return Long.parseLong(attribute(reader, name));
+	}
+
+	/**
+	 * Return the value of an attribute of the current element as a double.
+	 */
+	private static double parseDouble(XMLStreamReader reader, String name) {
+		return Double.parseDouble(attribute(reader, name));
+	}
+}
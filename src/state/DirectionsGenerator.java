@@ -1,12 +1,25 @@
 package state;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.swing.SwingUtilities;
+
+import coordinates.Spherical2DCoordinates;
+import directions.AlternativeRoutes;
 import directions.DirectionStrategy;
 import directions.Directions;
+import directions.RouteChoices;
+import directions.Vertex;
 
 /**
- * A mediator between the directions package and the GUI portion of the program. Creates
- * a new thread to calculate directions between specified vertices in response to state
- * changes.
+ * A mediator between the directions package and the GUI portion of the program. Calculates
+ * directions between specified vertices on a background thread in response to state
+ * changes, so the listener callback returns at once. A newer request cancels any
+ * request which has not finished, and only the directions for the latest request are
+ * published back to the map state, on the Swing event thread. Alternative routes, if
+ * offered, are published after the directions, so they add nothing to the wait for them.
  * @author rohithrokkam
  */
 public class DirectionsGenerator implements StateListener {
@@ -14,32 +27,113 @@ public class DirectionsGenerator implements StateListener {
 	/* The directions strategy for this directions generator. */
 	private DirectionStrategy strategy;
 	
+	/* The directions strategy used to reroute while driving there. */
+	private DirectionStrategy rerouteStrategy;
+	
+	/* Finds alternatives to new directions, or null if none are offered. */
+	private AlternativeRoutes alternatives;
+	
+	/* The largest number of alternatives offered for new directions. */
+	private static final int ALTERNATIVES = 2;
+	
 	/*  The state information of the map to be drawn. */
 	private MapState state;
+	
+	/* The thread on which directions are calculated. */
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "directions");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	/* The request currently being calculated, or null. */
+	private Future<?> pending;
+	
+	/* The number of the latest request; results of older requests are dropped. */
+	private volatile long generation;
 
 	/**
 	 * Construct a new directions generator.
 	 */
 	public DirectionsGenerator(DirectionStrategy strategy, MapState state) {
+		this(strategy, strategy, state);
+	}
+	
+	/**
+	 * Construct a new directions generator which uses a separate strategy to
+	 * reroute while driving there. Reroutes always share the end vertex, so a
+	 * strategy such as ReverseTreeDjikstra can answer them without searching.
+	 */
+	public DirectionsGenerator(DirectionStrategy strategy,
+			DirectionStrategy rerouteStrategy, MapState state) {
+		this(strategy, rerouteStrategy, null, state);
+	}
+	
+	/**
+	 * Construct a new directions generator which also offers alternatives to
+	 * new directions. Reroutes while driving there are offered no alternatives.
+	 */
+	public DirectionsGenerator(DirectionStrategy strategy,
+			DirectionStrategy rerouteStrategy, AlternativeRoutes alternatives, MapState state) {
 		this.strategy = strategy;
+		this.rerouteStrategy = rerouteStrategy;
+		this.alternatives = alternatives;
 		this.state = state;
 	}
 	
 	/**
-	 * Called by the MapState object when this state is updated. 
+	 * Called by the MapState object when this state is updated. Starts calculating
+	 * new directions in the background if they are needed.
 	 */
 	@Override
 	public void stateUpdated() {
 		if(state.getNeedDirections() == true) {
-			// should really create a new thread to run this bit -- Djikstra's algorithm.
-			Directions directions;
-			if(state.getDrivingThere())
-				directions = strategy.getDirections(state.getObjectAt(), state.getEnd());
-			else
-				directions = strategy.getDirections(state.getStart(), state.getEnd());
+			boolean drivingThere = state.getDrivingThere();
+			Vertex start = state.getStart();
+			Vertex end = state.getEnd();
+			Spherical2DCoordinates location = state.getLastCoordinates();
 			state.setNeedDirections(false); // important to call this before anything else
 			// to avoid endless calls being added to stack.
-			state.setDirections(directions);
+			request(drivingThere, start, end, location);
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Cancel the pending request, if any, and start calculating directions for
+	 * a new one. When driving there, the start is the routable node nearest the
+	 * client's location as it was when the request was made, so the reroute can
+	 * reach the end from it. It is found on the background thread since finding
+	 * it scans the whole map.
+	 */
+	private synchronized void request(boolean drivingThere, Vertex start, Vertex end,
+			Spherical2DCoordinates location) {
+		if(pending != null)
+			pending.cancel(true);
+		long request = ++generation;
+		pending = executor.submit(() -> {
+			Directions directions;
+			if(drivingThere)
+				directions = rerouteStrategy.getDirections(
+						(location == null) ? null : state.getNodeAt(location), end);
+			else
+				directions = strategy.getDirections(start, end);
+			if(Thread.currentThread().isInterrupted() || request != generation)
+				return; // A newer request has replaced this one.
+			SwingUtilities.invokeLater(() -> {
+				if(request == generation)
+					state.setDirections(directions);
+			});
+			if(drivingThere || alternatives == null || Directions.NO_DIRECTIONS.equals(directions))
+				return;
+			// Alternatives are measured against the route shown, which may not be
+			// the shortest route the alternatives' own search finds.
+			RouteChoices choices = alternatives.getRouteChoices(start, end, ALTERNATIVES, directions);
+			if(Thread.currentThread().isInterrupted() || request != generation)
+				return;
+			SwingUtilities.invokeLater(() -> {
+				if(request == generation)
+					state.setAlternatives(choices.alternatives());
+			});
+		});
+	}
+}
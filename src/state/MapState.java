@@ -1,8 +1,11 @@
 package state;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
 
 import com.starkeffect.highway.GPSEvent;
 import com.starkeffect.highway.GPSListener;
@@ -40,6 +43,9 @@ public class MapState implements GPSListener {
 
 	/* The set of directions to be displayed. */
 	private Directions directions = null;
+
+	/* Alternatives to the displayed directions, which the driver may switch to. */
+	private List<Directions> alternatives = Collections.emptyList();
 	
 	/* A flag indicating whether directions need to be computed/recomputed. */
 	private boolean needNewDirections = false;
@@ -50,6 +56,9 @@ public class MapState implements GPSListener {
 	/* The nearest object to the client when the directions were last computed. */
 	private Element lastElementAt;
 	
+	/* Accepts the nodes which start and end points may snap to. */
+	private Predicate<? super Node> routable = n -> true;
+	
 	/**
 	 * Construct an object representing state information about a map.
 	 */
@@ -99,6 +108,7 @@ public class MapState implements GPSListener {
 	 */
 	public void setDirections(Directions directions) {
 		this.directions = directions;
+		alternatives = Collections.emptyList();
 		// Don't call for directions until the nearest object to the client
 		// is a different one than last time.
 		if(lastElementAt != null && Directions.NO_DIRECTIONS.equals(directions)) {
@@ -111,6 +121,34 @@ public class MapState implements GPSListener {
 		updateListeners();
 	}
 
+	/**
+	 * Return the alternatives to the current directions. The list cannot be modified.
+	 * @return The alternatives to the current directions, possibly none.
+	 */
+	public List<Directions> getAlternatives() { return Collections.unmodifiableList(alternatives); }
+
+	/**
+	 * Set the alternatives to the current directions. New directions clear
+	 * them, so they must be set after the directions they belong to.
+	 * @param alternatives The alternatives to the current directions.
+	 */
+	public void setAlternatives(List<Directions> alternatives) {
+		this.alternatives = new ArrayList<Directions>(alternatives);
+		updateListeners();
+	}
+
+	/**
+	 * Switch to the next alternative to the current directions, which become
+	 * the last alternative, so that repeated calls cycle through every route.
+	 */
+	public void nextRoute() {
+		if(alternatives.isEmpty())
+			return;
+		alternatives.add(directions);
+		directions = alternatives.remove(0);
+		updateListeners();
+	}
+
 	/**
 	 * Get the flag indicating whether directions need to be recomputed.
 	 * @return The flag indicating whether directions need to be recomputed.
@@ -203,6 +241,39 @@ public class MapState implements GPSListener {
 		return nearestObject;
 	}
 	
+	/**
+	 * Return the node nearest to a location among the nodes accepted by the
+	 * routable filter, or null if there is no such node. Like getObjectAt(),
+	 * this scans the whole map.
+	 * @param sc The location whose nearest routable node is to be found.
+	 * @return The routable node nearest to the location, or null if none.
+	 */
+	public Node getNodeAt(Spherical2DCoordinates sc) {
+		float minDistance = Float.POSITIVE_INFINITY;
+		Node nearestNode = null;
+		for (Iterator<Element> it = map.values().iterator(); it.hasNext();) {
+			Element next = it.next();
+			if(next instanceof Node && routable.test((Node) next)) {
+				float distance = sc.metric().distance(sc, next.coordinates());
+				if (distance < minDistance) {
+					nearestNode = (Node) next;
+					minDistance = distance;
+				}
+			}
+		}
+		return nearestNode;
+	}
+	
+	/**
+	 * Set the filter for nodes which start and end points may snap to, such
+	 * as the nodes in the largest strongly connected component of the road
+	 * graph, from which every other such node can be reached.
+	 * @param routable Accepts the nodes which start and end points may snap to.
+	 */
+	public void setRoutable(Predicate<? super Node> routable) {
+		this.routable = routable;
+	}
+	
 	/**
 	 * An auxiliary getObjectAt method which uses the client's current location
 	 * as a default. Returns null if the last coordinates of the client have not
@@ -223,6 +294,7 @@ public class MapState implements GPSListener {
 		start = null;
 		end = null;
 		directions = null;
+		alternatives = Collections.emptyList();
 		needNewDirections = false;
 		drivingThere = false;
 		updateListeners();